@@ -0,0 +1,18 @@
+package com.thienan.lovebox.config;
+
+import com.thienan.lovebox.repository.UserRepository;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class FollowCountersConfig {
+
+    // Backfills the denormalized follow counters from user_follows, e.g. after upgrading an existing database
+    @Bean
+    @ConditionalOnProperty(name = "app.rebuildFollowCountersOnStartup", havingValue = "true")
+    public CommandLineRunner rebuildFollowCounters(UserRepository userRepository) {
+        return args -> userRepository.rebuildFollowCounters();
+    }
+}
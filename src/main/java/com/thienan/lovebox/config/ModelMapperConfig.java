@@ -0,0 +1,47 @@
+package com.thienan.lovebox.config;
+
+import com.thienan.lovebox.entity.*;
+import com.thienan.lovebox.payload.request.*;
+import com.thienan.lovebox.payload.response.*;
+import com.thienan.lovebox.shared.dto.*;
+import org.modelmapper.ModelMapper;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class ModelMapperConfig {
+
+    public static final String ANONYMOUS_USER_RESPONSE = "anonymousUserResponse";
+
+    // Every type map is created here, once, while the bean is built.
+    // Callers only ever map with the shared instance and must not add or change type maps at runtime.
+    // Entity to DTO to response mapping on list endpoints is handwritten, see shared.mapper.
+    @Bean
+    public ModelMapper modelMapper() {
+        ModelMapper modelMapper = new ModelMapper();
+        modelMapper.getConfiguration().setAmbiguityIgnored(true);
+
+        modelMapper.createTypeMap(UserDto.class, UserEntity.class);
+        modelMapper.createTypeMap(PhotoDto.class, PhotoEntity.class);
+
+        modelMapper.createTypeMap(UserSignUpRequest.class, UserDto.class);
+        modelMapper.createTypeMap(UserUpdateRequest.class, UserDto.class);
+
+        modelMapper.createTypeMap(UserDto.class, UserResponse.class)
+                .addMappings(mapper -> mapper.map(UserDto::getBffDetail, UserResponse::setBffDetail));
+        modelMapper.createTypeMap(UserDto.class, UserResponse.class, ANONYMOUS_USER_RESPONSE)
+                .addMappings(mapper -> mapper.map(UserDto::getBffDetail, UserResponse::setBffDetail))
+                .addMappings(mapper -> mapper.skip(UserResponse::setFollowed));
+
+        modelMapper.createTypeMap(SingleQuestionDto.class, SingleQuestionEntity.class);
+        modelMapper.createTypeMap(AskSingleQuestionRequest.class, SingleQuestionDto.class);
+
+        modelMapper.createTypeMap(CoupleQuestionDto.class, CoupleQuestionEntity.class);
+        modelMapper.createTypeMap(AskCoupleQuestionRequest.class, CoupleQuestionDto.class);
+
+        modelMapper.createTypeMap(BffRequestDto.class, BffRequestEntity.class);
+        modelMapper.createTypeMap(BffRequestRequest.class, BffRequestDto.class);
+
+        return modelMapper;
+    }
+}
@@ -0,0 +1,29 @@
+package com.thienan.lovebox.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+public class PhotoUploadConfig {
+
+    @Value("${app.photoUploadPoolSize}")
+    private int photoUploadPoolSize;
+
+    @Value("${app.photoUploadQueueCapacity}")
+    private int photoUploadQueueCapacity;
+
+    // Uploads to the photo store run here instead of on request threads
+    @Bean
+    public ThreadPoolTaskExecutor photoUploadExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(photoUploadPoolSize);
+        executor.setMaxPoolSize(photoUploadPoolSize);
+        executor.setQueueCapacity(photoUploadQueueCapacity);
+        executor.setThreadNamePrefix("photo-upload-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+}
@@ -0,0 +1,36 @@
+package com.thienan.lovebox.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+@Configuration
+public class SharedPhotosConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(SharedPhotosConfig.class);
+
+    // Unique single-column indexes on users.photo_id, left behind by the former one-to-one mapping
+    private static final String FIND_PHOTO_UNIQUE_KEYS = "select distinct s.index_name from information_schema.statistics s " +
+            "where s.table_schema = database() and s.table_name = 'users' and s.column_name = 'photo_id' " +
+            "and s.non_unique = 0 and s.index_name <> 'PRIMARY' " +
+            "and not exists (select 1 from information_schema.statistics o where o.table_schema = s.table_schema " +
+            "and o.table_name = s.table_name and o.index_name = s.index_name and o.column_name <> 'photo_id')";
+
+    // Identical uploads share one photo row, which ddl-auto=update cannot make room for on its own.
+    // The foreign key falls back to idx_users_photo, which Hibernate creates before this runs.
+    @Bean
+    public CommandLineRunner dropPhotoUniqueKeys(JdbcTemplate jdbcTemplate) {
+        return args -> {
+            List<String> indexNames = jdbcTemplate.queryForList(FIND_PHOTO_UNIQUE_KEYS, String.class);
+            for (String indexName : indexNames) {
+                logger.info("Dropping unique key {} on users.photo_id so photos can be shared", indexName);
+                jdbcTemplate.execute("alter table users drop index `" + indexName.replace("`", "``") + "`");
+            }
+        };
+    }
+}
@@ -0,0 +1,18 @@
+package com.thienan.lovebox.config;
+
+import com.thienan.lovebox.service.TimelineService;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class TimelinesConfig {
+
+    // Backfills the news feed timelines from answered questions, e.g. after upgrading an existing database
+    @Bean
+    @ConditionalOnProperty(name = "app.rebuildTimelinesOnStartup", havingValue = "true")
+    public CommandLineRunner rebuildTimelines(TimelineService timelineService) {
+        return args -> timelineService.rebuildTimelines();
+    }
+}
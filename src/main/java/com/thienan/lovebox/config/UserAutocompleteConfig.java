@@ -0,0 +1,19 @@
+package com.thienan.lovebox.config;
+
+import com.thienan.lovebox.service.UserAutocompleteService;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class UserAutocompleteConfig {
+
+    // The autocomplete index lives in memory only. Without this run an instance only suggests
+    // users created or changed since it started.
+    @Bean
+    @ConditionalOnProperty(name = "app.rebuildUserAutocompleteOnStartup", havingValue = "true")
+    public CommandLineRunner rebuildUserAutocompleteIndex(UserAutocompleteService userAutocompleteService) {
+        return args -> userAutocompleteService.rebuildIndex();
+    }
+}
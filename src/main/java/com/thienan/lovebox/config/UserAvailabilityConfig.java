@@ -0,0 +1,16 @@
+package com.thienan.lovebox.config;
+
+import com.thienan.lovebox.service.UserAvailabilityService;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class UserAvailabilityConfig {
+
+    // The availability filters live in memory only, so every instance loads them at startup
+    @Bean
+    public CommandLineRunner rebuildUserAvailabilityFilters(UserAvailabilityService userAvailabilityService) {
+        return args -> userAvailabilityService.rebuildFilters();
+    }
+}
@@ -0,0 +1,18 @@
+package com.thienan.lovebox.config;
+
+import com.thienan.lovebox.service.UsernameTrigramService;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class UsernameTrigramsConfig {
+
+    // Backfills the username search index from users, e.g. after upgrading an existing database
+    @Bean
+    @ConditionalOnProperty(name = "app.rebuildUsernameTrigramsOnStartup", havingValue = "true")
+    public CommandLineRunner rebuildUsernameTrigrams(UsernameTrigramService usernameTrigramService) {
+        return args -> usernameTrigramService.rebuildIndex();
+    }
+}
@@ -6,17 +6,24 @@ import com.thienan.lovebox.payload.request.UserSignInRequest;
 import com.thienan.lovebox.payload.request.UserSignUpRequest;
 import com.thienan.lovebox.payload.request.UserUpdateRequest;
 import com.thienan.lovebox.payload.response.JwtAuthenticationResponse;
+import com.thienan.lovebox.payload.response.PhotoUploadJobResponse;
 import com.thienan.lovebox.payload.response.UserResponse;
 import com.thienan.lovebox.security.CurrentUser;
+import com.thienan.lovebox.security.SignInRateLimiter;
 import com.thienan.lovebox.security.UserPrincipal;
+import com.thienan.lovebox.service.PhotoUploadService;
 import com.thienan.lovebox.service.UserService;
+import com.thienan.lovebox.shared.dto.PhotoUploadJobDto;
 import com.thienan.lovebox.shared.dto.UserDto;
+import com.thienan.lovebox.shared.mapper.PhotoUploadJobMapper;
 import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import javax.servlet.http.HttpServletRequest;
 import javax.validation.Valid;
 
 @RestController
@@ -26,11 +33,23 @@ public class AuthController {
     @Autowired
     UserService userService;
 
+    @Autowired
+    PhotoUploadService photoUploadService;
+
+    @Autowired
+    SignInRateLimiter signInRateLimiter;
+
+    @Autowired
+    PhotoUploadJobMapper photoUploadJobMapper;
+
     @Autowired
     ModelMapper modelMapper;
 
     @PostMapping("/sign-in")
-    public JwtAuthenticationResponse signIn(@Valid @RequestBody UserSignInRequest userSignInRequest) {
+    public JwtAuthenticationResponse signIn(@Valid @RequestBody UserSignInRequest userSignInRequest,
+                                            HttpServletRequest request) {
+        signInRateLimiter.checkSignIn(userSignInRequest.getUsernameOrEmail(), request.getRemoteAddr());
+
         String jwt = userService.authenticateUser(
                 userSignInRequest.getUsernameOrEmail(),
                 userSignInRequest.getPassword()
@@ -73,18 +92,27 @@ public class AuthController {
 
     @PutMapping("/me/password")
     @PreAuthorize("hasRole('USER')")
-    public UserResponse changeUserPassword(@CurrentUser UserPrincipal currentUser,
-                                           @RequestBody UserChangePasswordRequest userChangePasswordRequest) {
-        UserDto updatedUserDto = userService.changeUserPassword(currentUser.getId(), userChangePasswordRequest.getNewPassword());
-        return mapToUserResponse(updatedUserDto);
+    public JwtAuthenticationResponse changeUserPassword(@CurrentUser UserPrincipal currentUser,
+                                                        @RequestBody UserChangePasswordRequest userChangePasswordRequest) {
+        String jwt = userService.changeUserPassword(currentUser.getId(), userChangePasswordRequest.getNewPassword());
+        return new JwtAuthenticationResponse(jwt);
     }
 
     @PostMapping("/me/photo")
     @PreAuthorize("hasRole('USER')")
-    public UserResponse changeUserPhoto(@CurrentUser UserPrincipal currentUser,
-                                        @RequestParam("file") MultipartFile multipartFile) {
-        UserDto updatedUserDto = userService.changeUserPhoto(currentUser.getId(), multipartFile);
-        return mapToUserResponse(updatedUserDto);
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    public PhotoUploadJobResponse changeUserPhoto(@CurrentUser UserPrincipal currentUser,
+                                                  @RequestParam("file") MultipartFile multipartFile) {
+        PhotoUploadJobDto photoUploadJobDto = photoUploadService.submitUserPhoto(currentUser.getId(), multipartFile);
+        return photoUploadJobMapper.toPhotoUploadJobResponse(photoUploadJobDto);
+    }
+
+    @GetMapping("/me/photo/jobs/{jobId}")
+    @PreAuthorize("hasRole('USER')")
+    public PhotoUploadJobResponse getUserPhotoJob(@CurrentUser UserPrincipal currentUser,
+                                                  @PathVariable("jobId") Long jobId) {
+        PhotoUploadJobDto photoUploadJobDto = photoUploadService.getUserPhotoJob(currentUser.getId(), jobId);
+        return photoUploadJobMapper.toPhotoUploadJobResponse(photoUploadJobDto);
     }
 
     private UserResponse mapToUserResponse(UserDto userDto) {
@@ -12,9 +12,9 @@ import com.thienan.lovebox.service.BffRequestService;
 import com.thienan.lovebox.service.UserService;
 import com.thienan.lovebox.shared.dto.BffRequestDto;
 import com.thienan.lovebox.shared.dto.UserDto;
+import com.thienan.lovebox.shared.mapper.BffRequestMapper;
 import com.thienan.lovebox.utils.PagedResponse;
 import org.modelmapper.ModelMapper;
-import org.modelmapper.TypeToken;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Pageable;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -32,6 +32,9 @@ public class BffRequestController {
     @Autowired
     BffRequestService bffRequestService;
 
+    @Autowired
+    BffRequestMapper bffRequestMapper;
+
     @Autowired
     ModelMapper modelMapper;
 
@@ -40,6 +43,7 @@ public class BffRequestController {
     public PagedResponse<BffRequestResponse> getBffRequests(@CurrentUser UserPrincipal currentUser,
                                                             @PathVariable("userId") Long userId,
                                                             @RequestParam(value = "type") String type,
+                                                            @RequestParam(value = "count", defaultValue = "true") boolean count,
                                                             Pageable pageable) {
         if (!userId.equals(currentUser.getId())) {
             throw new ForbiddenException("Cannot get this BFF requests of this user");
@@ -47,9 +51,9 @@ public class BffRequestController {
 
         PagedResponse<BffRequestDto> bffRequestDtoPage;
         if (type.equals("sent")) {
-            bffRequestDtoPage = bffRequestService.getSentBffRequestByUserId(userId, pageable);
+            bffRequestDtoPage = bffRequestService.getSentBffRequestByUserId(userId, pageable, count);
         } else if (type.equals("received")) {
-            bffRequestDtoPage = bffRequestService.getReceivedBffRequestByUserId(userId, pageable);
+            bffRequestDtoPage = bffRequestService.getReceivedBffRequestByUserId(userId, pageable, count);
         } else {
             throw new BadRequestException("Missing BFF request type");
         }
@@ -173,12 +177,11 @@ public class BffRequestController {
     }
 
     private BffRequestResponse mapToBffRequestResponse(BffRequestDto bffRequestDto) {
-        return modelMapper.map(bffRequestDto, BffRequestResponse.class);
+        return bffRequestMapper.toBffRequestResponse(bffRequestDto);
     }
 
     private List<BffRequestResponse> mapToBffRequestResponseList(List<BffRequestDto> bffRequestDtos) {
-        return modelMapper.map(bffRequestDtos, new TypeToken<List<BffRequestResponse>>() {
-        }.getType());
+        return bffRequestMapper.toBffRequestResponseList(bffRequestDtos);
     }
 
     private PagedResponse<BffRequestResponse> mapToBffRequestResponsePage(PagedResponse<BffRequestDto> bffRequestDtoPage) {
@@ -13,17 +13,23 @@ import com.thienan.lovebox.service.UserService;
 import com.thienan.lovebox.shared.dto.BffDetailDto;
 import com.thienan.lovebox.shared.dto.CoupleQuestionDto;
 import com.thienan.lovebox.shared.dto.UserDto;
+import com.thienan.lovebox.shared.mapper.CoupleQuestionMapper;
+import com.thienan.lovebox.utils.CursorResponse;
 import com.thienan.lovebox.utils.PagedResponse;
 import org.modelmapper.ModelMapper;
-import org.modelmapper.TypeToken;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Pageable;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
 import javax.validation.Valid;
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+import java.util.Collections;
 import java.util.List;
 
+@Validated
 @RestController
 @RequestMapping("/api/users/{userId}/couple-questions")
 public class CoupleQuestionController {
@@ -34,6 +40,9 @@ public class CoupleQuestionController {
     @Autowired
     CoupleQuestionService coupleQuestionService;
 
+    @Autowired
+    CoupleQuestionMapper coupleQuestionMapper;
+
     @Autowired
     ModelMapper modelMapper;
 
@@ -47,7 +56,23 @@ public class CoupleQuestionController {
         }
 
         PagedResponse<CoupleQuestionDto> questions = coupleQuestionService.getQuestionsInNewsFeed(userId, pageable);
-        return mapToCoupleQuestionResponsePage(questions);
+        return mapToCoupleQuestionResponsePage(questions, currentUser.getId());
+    }
+
+    @GetMapping("/news-feed/cursor")
+    @PreAuthorize("hasRole('USER')")
+    public CursorResponse<CoupleQuestionResponse> getQuestionsInNewsFeedByCursor(@CurrentUser UserPrincipal currentUser,
+                                                                                @PathVariable("userId") Long userId,
+                                                                                @RequestParam(value = "cursor", required = false) String cursor,
+                                                                                @RequestParam(value = "size", defaultValue = "20") @Min(1) @Max(100) int size) {
+        if (!userId.equals(currentUser.getId())) {
+            throw new ForbiddenException("Cannot get news feed of this user");
+        }
+
+        CursorResponse<CoupleQuestionDto> questions = coupleQuestionService.getQuestionsInNewsFeed(userId, cursor, size);
+        coupleQuestionService.loadLoveStats(questions.getContent(), currentUser.getId());
+        List<CoupleQuestionResponse> coupleQuestionResponses = coupleQuestionMapper.toCoupleQuestionResponseList(questions.getContent());
+        return new CursorResponse<>(coupleQuestionResponses, questions.getNextCursor());
     }
 
     @GetMapping()
@@ -55,13 +80,14 @@ public class CoupleQuestionController {
     public PagedResponse<CoupleQuestionResponse> getQuestions(@CurrentUser UserPrincipal currentUser,
                                                               @PathVariable("userId") Long userId,
                                                               @RequestParam(value = "answered", defaultValue = "false") boolean answered,
+                                                              @RequestParam(value = "count", defaultValue = "true") boolean count,
                                                               Pageable pageable) {
         if (!userId.equals(currentUser.getId()) && !answered) {
             throw new ForbiddenException("Cannot get questions of this user");
         }
 
-        PagedResponse<CoupleQuestionDto> questions = coupleQuestionService.getQuestionsByUserId(userId, answered, pageable);
-        return mapToCoupleQuestionResponsePage(questions);
+        PagedResponse<CoupleQuestionDto> questions = coupleQuestionService.getQuestionsByUserId(userId, answered, pageable, count);
+        return mapToCoupleQuestionResponsePage(questions, currentUser.getId());
     }
 
     @PostMapping
@@ -88,7 +114,7 @@ public class CoupleQuestionController {
         coupleQuestionDto.setSecondAnswerer(bffDetailDto.getSecondUser());
 
         CoupleQuestionDto createdQuestion = coupleQuestionService.createQuestion(coupleQuestionDto);
-        return mapToCoupleQuestionResponse(createdQuestion);
+        return mapToCoupleQuestionResponse(createdQuestion, currentUser.getId());
     }
 
     @GetMapping("/{id}")
@@ -109,7 +135,7 @@ public class CoupleQuestionController {
             throw new BadRequestException("Question has not been answered");
         }
 
-        return mapToCoupleQuestionResponse(coupleQuestionDto);
+        return mapToCoupleQuestionResponse(coupleQuestionDto, currentUser.getId());
     }
 
     @PostMapping("/{id}/answer")
@@ -133,7 +159,7 @@ public class CoupleQuestionController {
         CoupleQuestionDto answeredCoupleQuestionDto = coupleQuestionService
                 .answerQuestion(id, currentUser.getId(), answerCoupleQuestionRequest.getAnswerText());
 
-        return mapToCoupleQuestionResponse(answeredCoupleQuestionDto);
+        return mapToCoupleQuestionResponse(answeredCoupleQuestionDto, currentUser.getId());
     }
 
     @PostMapping("/{id}/unanswer")
@@ -154,7 +180,7 @@ public class CoupleQuestionController {
         }
 
         CoupleQuestionDto unansweredCoupleQuestionDto = coupleQuestionService.unanswerQuestion(id);
-        return mapToCoupleQuestionResponse(unansweredCoupleQuestionDto);
+        return mapToCoupleQuestionResponse(unansweredCoupleQuestionDto, currentUser.getId());
     }
 
     @PostMapping("/{id}/love")
@@ -173,8 +199,9 @@ public class CoupleQuestionController {
             throw new BadRequestException("Question has not been answered");
         }
 
-        CoupleQuestionDto lovedCoupleQuestionDto = coupleQuestionService.loveOrUnloveQuestion(id, currentUser.getId());
-        return mapToCoupleQuestionResponse(lovedCoupleQuestionDto);
+        // Love stats are loaded while mapping, so the response already reflects the toggle
+        coupleQuestionService.loveOrUnloveQuestion(id, currentUser.getId());
+        return mapToCoupleQuestionResponse(coupleQuestionDto, currentUser.getId());
     }
 
     @DeleteMapping("/{id}")
@@ -198,16 +225,17 @@ public class CoupleQuestionController {
         return new ApiResponse(true, "Delete couple question successfully");
     }
 
-    private CoupleQuestionResponse mapToCoupleQuestionResponse(CoupleQuestionDto coupleQuestionDto) {
-        return modelMapper.map(coupleQuestionDto, CoupleQuestionResponse.class);
+    private CoupleQuestionResponse mapToCoupleQuestionResponse(CoupleQuestionDto coupleQuestionDto, Long viewerId) {
+        coupleQuestionService.loadLoveStats(Collections.singletonList(coupleQuestionDto), viewerId);
+        return coupleQuestionMapper.toCoupleQuestionResponse(coupleQuestionDto);
     }
 
-    private PagedResponse<CoupleQuestionResponse> mapToCoupleQuestionResponsePage(PagedResponse<CoupleQuestionDto> coupleQuestionDtos) {
-        List<CoupleQuestionResponse> coupleQuestionResponses = modelMapper.map(
-                coupleQuestionDtos.getContent(),
-                new TypeToken<List<CoupleQuestionResponse>>() {
-                }.getType()
-        );
+    private PagedResponse<CoupleQuestionResponse> mapToCoupleQuestionResponsePage(PagedResponse<CoupleQuestionDto> coupleQuestionDtos,
+                                                                                  Long viewerId) {
+        coupleQuestionService.loadLoveStats(coupleQuestionDtos.getContent(), viewerId);
+
+        List<CoupleQuestionResponse> coupleQuestionResponses = coupleQuestionMapper
+                .toCoupleQuestionResponseList(coupleQuestionDtos.getContent());
 
         return new PagedResponse<>(coupleQuestionResponses, coupleQuestionDtos.getPagination());
     }
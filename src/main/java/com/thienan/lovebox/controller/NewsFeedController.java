@@ -0,0 +1,45 @@
+package com.thienan.lovebox.controller;
+
+import com.thienan.lovebox.exception.ForbiddenException;
+import com.thienan.lovebox.payload.response.NewsFeedItemResponse;
+import com.thienan.lovebox.security.CurrentUser;
+import com.thienan.lovebox.security.UserPrincipal;
+import com.thienan.lovebox.service.NewsFeedService;
+import com.thienan.lovebox.shared.dto.NewsFeedItemDto;
+import com.thienan.lovebox.shared.mapper.NewsFeedItemMapper;
+import com.thienan.lovebox.utils.CursorResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+import java.util.List;
+
+@Validated
+@RestController
+@RequestMapping("/api/users/{userId}/news-feed")
+public class NewsFeedController {
+
+    @Autowired
+    NewsFeedService newsFeedService;
+
+    @Autowired
+    NewsFeedItemMapper newsFeedItemMapper;
+
+    @GetMapping()
+    @PreAuthorize("hasRole('USER')")
+    public CursorResponse<NewsFeedItemResponse> getNewsFeed(@CurrentUser UserPrincipal currentUser,
+                                                            @PathVariable("userId") Long userId,
+                                                            @RequestParam(value = "cursor", required = false) String cursor,
+                                                            @RequestParam(value = "size", defaultValue = "20") @Min(1) @Max(100) int size) {
+        if (!userId.equals(currentUser.getId())) {
+            throw new ForbiddenException("Cannot get news feed of this user");
+        }
+
+        CursorResponse<NewsFeedItemDto> newsFeed = newsFeedService.getNewsFeed(userId, cursor, size);
+        List<NewsFeedItemResponse> newsFeedItemResponses = newsFeedItemMapper.toNewsFeedItemResponseList(newsFeed.getContent());
+        return new CursorResponse<>(newsFeedItemResponses, newsFeed.getNextCursor());
+    }
+}
@@ -5,6 +5,7 @@ import com.thienan.lovebox.exception.ForbiddenException;
 import com.thienan.lovebox.payload.request.AnswerSingleQuestionRequest;
 import com.thienan.lovebox.payload.request.AskSingleQuestionRequest;
 import com.thienan.lovebox.payload.response.ApiResponse;
+import com.thienan.lovebox.utils.CursorResponse;
 import com.thienan.lovebox.utils.PagedResponse;
 import com.thienan.lovebox.payload.response.SingleQuestionResponse;
 import com.thienan.lovebox.security.CurrentUser;
@@ -13,16 +14,21 @@ import com.thienan.lovebox.service.SingleQuestionService;
 import com.thienan.lovebox.service.UserService;
 import com.thienan.lovebox.shared.dto.SingleQuestionDto;
 import com.thienan.lovebox.shared.dto.UserDto;
+import com.thienan.lovebox.shared.mapper.SingleQuestionMapper;
 import org.modelmapper.ModelMapper;
-import org.modelmapper.TypeToken;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Pageable;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
 import javax.validation.Valid;
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+import java.util.Collections;
 import java.util.List;
 
+@Validated
 @RestController
 @RequestMapping("/api/users/{userId}/single-questions")
 public class SingleQuestionController {
@@ -33,6 +39,9 @@ public class SingleQuestionController {
     @Autowired
     SingleQuestionService singleQuestionService;
 
+    @Autowired
+    SingleQuestionMapper singleQuestionMapper;
+
     @Autowired
     ModelMapper modelMapper;
 
@@ -46,7 +55,23 @@ public class SingleQuestionController {
         }
 
         PagedResponse<SingleQuestionDto> questions = singleQuestionService.getQuestionsInNewsFeed(userId, pageable);
-        return mapToSingleQuestionResponsePage(questions);
+        return mapToSingleQuestionResponsePage(questions, currentUser.getId());
+    }
+
+    @GetMapping("/news-feed/cursor")
+    @PreAuthorize("hasRole('USER')")
+    public CursorResponse<SingleQuestionResponse> getQuestionsInNewsFeedByCursor(@CurrentUser UserPrincipal currentUser,
+                                                                                @PathVariable("userId") Long userId,
+                                                                                @RequestParam(value = "cursor", required = false) String cursor,
+                                                                                @RequestParam(value = "size", defaultValue = "20") @Min(1) @Max(100) int size) {
+        if (!userId.equals(currentUser.getId())) {
+            throw new ForbiddenException("Cannot get news feed of this user");
+        }
+
+        CursorResponse<SingleQuestionDto> questions = singleQuestionService.getQuestionsInNewsFeed(userId, cursor, size);
+        singleQuestionService.loadLoveStats(questions.getContent(), currentUser.getId());
+        List<SingleQuestionResponse> singleQuestionResponses = singleQuestionMapper.toSingleQuestionResponseList(questions.getContent());
+        return new CursorResponse<>(singleQuestionResponses, questions.getNextCursor());
     }
 
     @GetMapping()
@@ -54,13 +79,14 @@ public class SingleQuestionController {
     public PagedResponse<SingleQuestionResponse> getQuestions(@CurrentUser UserPrincipal currentUser,
                                                               @PathVariable("userId") Long userId,
                                                               @RequestParam(value = "answered", defaultValue = "false") boolean answered,
+                                                              @RequestParam(value = "count", defaultValue = "true") boolean count,
                                                               Pageable pageable) {
         if (!userId.equals(currentUser.getId()) && !answered) {
             throw new ForbiddenException("Cannot get questions of this user");
         }
 
-        PagedResponse<SingleQuestionDto> questions = singleQuestionService.getQuestionsByUserId(userId, answered, pageable);
-        return mapToSingleQuestionResponsePage(questions);
+        PagedResponse<SingleQuestionDto> questions = singleQuestionService.getQuestionsByUserId(userId, answered, pageable, count);
+        return mapToSingleQuestionResponsePage(questions, currentUser.getId());
     }
 
     @PostMapping
@@ -76,7 +102,7 @@ public class SingleQuestionController {
         singleQuestionDto.setAnswerer(answerer);
 
         SingleQuestionDto createdQuestion = singleQuestionService.createQuestion(singleQuestionDto);
-        return mapToSingleQuestionResponse(createdQuestion);
+        return mapToSingleQuestionResponse(createdQuestion, currentUser.getId());
     }
 
     @GetMapping("/{id}")
@@ -94,7 +120,7 @@ public class SingleQuestionController {
             throw new BadRequestException("Question has not been answered");
         }
 
-        return mapToSingleQuestionResponse(singleQuestionDto);
+        return mapToSingleQuestionResponse(singleQuestionDto, currentUser.getId());
     }
 
     @PostMapping("/{id}/answer")
@@ -116,7 +142,7 @@ public class SingleQuestionController {
         SingleQuestionDto answeredSingleQuestionDto = singleQuestionService
                 .answerQuestion(id, answerSingleQuestionRequest.getAnswerText());
 
-        return mapToSingleQuestionResponse(answeredSingleQuestionDto);
+        return mapToSingleQuestionResponse(answeredSingleQuestionDto, currentUser.getId());
     }
 
     @PostMapping("/{id}/unanswer")
@@ -135,7 +161,7 @@ public class SingleQuestionController {
         }
 
         SingleQuestionDto unansweredSingleQuestionDto = singleQuestionService.unanswerQuestion(id);
-        return mapToSingleQuestionResponse(unansweredSingleQuestionDto);
+        return mapToSingleQuestionResponse(unansweredSingleQuestionDto, currentUser.getId());
     }
 
     @PostMapping("/{id}/love")
@@ -153,8 +179,9 @@ public class SingleQuestionController {
             throw new BadRequestException("Question has not been answered");
         }
 
-        SingleQuestionDto lovedSingleQuestionDto = singleQuestionService.loveOrUnloveQuestion(id, currentUser.getId());
-        return mapToSingleQuestionResponse(lovedSingleQuestionDto);
+        // Love stats are loaded while mapping, so the response already reflects the toggle
+        singleQuestionService.loveOrUnloveQuestion(id, currentUser.getId());
+        return mapToSingleQuestionResponse(singleQuestionDto, currentUser.getId());
     }
 
     @DeleteMapping("/{id}")
@@ -176,16 +203,17 @@ public class SingleQuestionController {
         return new ApiResponse(true, "Delete single question successfully");
     }
 
-    private SingleQuestionResponse mapToSingleQuestionResponse(SingleQuestionDto singleQuestionDto) {
-        return modelMapper.map(singleQuestionDto, SingleQuestionResponse.class);
+    private SingleQuestionResponse mapToSingleQuestionResponse(SingleQuestionDto singleQuestionDto, Long viewerId) {
+        singleQuestionService.loadLoveStats(Collections.singletonList(singleQuestionDto), viewerId);
+        return singleQuestionMapper.toSingleQuestionResponse(singleQuestionDto);
     }
 
-    private PagedResponse<SingleQuestionResponse> mapToSingleQuestionResponsePage(PagedResponse<SingleQuestionDto> singleQuestionDtos) {
-        List<SingleQuestionResponse> singleQuestionResponses = modelMapper.map(
-                singleQuestionDtos.getContent(),
-                new TypeToken<List<SingleQuestionResponse>>() {
-                }.getType()
-        );
+    private PagedResponse<SingleQuestionResponse> mapToSingleQuestionResponsePage(PagedResponse<SingleQuestionDto> singleQuestionDtos,
+                                                                                  Long viewerId) {
+        singleQuestionService.loadLoveStats(singleQuestionDtos.getContent(), viewerId);
+
+        List<SingleQuestionResponse> singleQuestionResponses = singleQuestionMapper
+                .toSingleQuestionResponseList(singleQuestionDtos.getContent());
 
         return new PagedResponse<>(singleQuestionResponses, singleQuestionDtos.getPagination());
     }
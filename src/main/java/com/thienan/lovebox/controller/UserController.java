@@ -1,26 +1,28 @@
 package com.thienan.lovebox.controller;
 
+import com.thienan.lovebox.config.ModelMapperConfig;
 import com.thienan.lovebox.payload.response.ApiResponse;
 import com.thienan.lovebox.payload.response.UserAvailabilityResponse;
 import com.thienan.lovebox.payload.response.UserBriefDetailResponse;
 import com.thienan.lovebox.payload.response.UserResponse;
 import com.thienan.lovebox.security.CurrentUser;
 import com.thienan.lovebox.security.UserPrincipal;
+import com.thienan.lovebox.service.UserAutocompleteService;
 import com.thienan.lovebox.service.UserService;
 import com.thienan.lovebox.shared.dto.UserDto;
+import com.thienan.lovebox.shared.mapper.UserMapper;
 import com.thienan.lovebox.utils.PagedResponse;
-import org.modelmapper.Converter;
 import org.modelmapper.ModelMapper;
-import org.modelmapper.TypeToken;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Pageable;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
 import javax.validation.constraints.Size;
 import java.util.List;
-import java.util.Set;
 
 @Validated
 @RestController
@@ -30,6 +32,12 @@ public class UserController {
     @Autowired
     UserService userService;
 
+    @Autowired
+    UserAutocompleteService userAutocompleteService;
+
+    @Autowired
+    UserMapper userMapper;
+
     @Autowired
     ModelMapper modelMapper;
 
@@ -37,24 +45,13 @@ public class UserController {
     public UserResponse getUser(@CurrentUser UserPrincipal currentUser, @PathVariable("id") Long id) {
         UserDto userDto = userService.getUserById(id);
 
-        Converter<Set<UserDto>, Integer> converter = ctx -> ctx.getSource() == null ? null : ctx.getSource().size();
-
-        modelMapper.typeMap(UserDto.class, UserResponse.class)
-                .addMappings(mapper -> mapper.map(UserDto::getBffDetail, UserResponse::setBffDetail))
-                .addMappings(mapper -> mapper.using(converter).map(UserDto::getFollowing, UserResponse::setFollowingCount))
-                .addMappings(mapper -> mapper.using(converter).map(UserDto::getFollowers, UserResponse::setFollowersCount));
-
         if (currentUser == null) {
-            modelMapper.typeMap(UserDto.class, UserResponse.class)
-                    .addMappings(mapper -> mapper.skip(UserResponse::setFollowed));
+            return modelMapper.map(userDto, UserResponse.class, ModelMapperConfig.ANONYMOUS_USER_RESPONSE);
         }
 
         UserResponse userResponse = modelMapper.map(userDto, UserResponse.class);
-
-        if (currentUser != null) {
-            boolean isFollowed = userService.checkUserHasFollow(currentUser.getId(), id);
-            userResponse.setFollowed(isFollowed);
-        }
+        boolean isFollowed = userService.checkUserHasFollow(currentUser.getId(), id);
+        userResponse.setFollowed(isFollowed);
 
         return userResponse;
     }
@@ -73,15 +70,19 @@ public class UserController {
 
     @GetMapping("/{id}/following")
     @PreAuthorize("hasRole('USER')")
-    public PagedResponse<UserBriefDetailResponse> getFollowing(@PathVariable("id") Long id, Pageable pageable) {
-        PagedResponse<UserDto> users = userService.getFollowing(id, pageable);
+    public PagedResponse<UserBriefDetailResponse> getFollowing(@PathVariable("id") Long id,
+                                                               @RequestParam(value = "count", defaultValue = "true") boolean count,
+                                                               Pageable pageable) {
+        PagedResponse<UserDto> users = userService.getFollowing(id, pageable, count);
         return mapToUserBriefDetailResponsePage(users);
     }
 
     @GetMapping("/{id}/followers")
     @PreAuthorize("hasRole('USER')")
-    public PagedResponse<UserBriefDetailResponse> getFollowers(@PathVariable("id") Long id, Pageable pageable) {
-        PagedResponse<UserDto> users = userService.getFollowers(id, pageable);
+    public PagedResponse<UserBriefDetailResponse> getFollowers(@PathVariable("id") Long id,
+                                                               @RequestParam(value = "count", defaultValue = "true") boolean count,
+                                                               Pageable pageable) {
+        PagedResponse<UserDto> users = userService.getFollowers(id, pageable, count);
         return mapToUserBriefDetailResponsePage(users);
     }
 
@@ -96,14 +97,22 @@ public class UserController {
     @GetMapping("/search")
     @PreAuthorize("hasRole('USER')")
     public PagedResponse<UserBriefDetailResponse> searchUsers(@RequestParam(value = "username") @Size(min = 3, max = 20) String username,
+                                                              @RequestParam(value = "count", defaultValue = "true") boolean count,
                                                               Pageable pageable) {
-        PagedResponse<UserDto> users = userService.searchUsers(username, pageable);
+        PagedResponse<UserDto> users = userService.searchUsers(username, pageable, count);
         return mapToUserBriefDetailResponsePage(users);
     }
 
+    @GetMapping("/autocomplete")
+    @PreAuthorize("hasRole('USER')")
+    public List<UserBriefDetailResponse> autocompleteUsers(@RequestParam(value = "prefix") @Size(min = 1, max = 50) String prefix,
+                                                           @RequestParam(value = "limit", defaultValue = "10") @Min(1) @Max(20) int limit) {
+        List<UserDto> users = userAutocompleteService.autocomplete(prefix, limit);
+        return mapToUserBriefDetailResponseList(users);
+    }
+
     private List<UserBriefDetailResponse> mapToUserBriefDetailResponseList(List<UserDto> userDtos) {
-        return modelMapper.map(userDtos, new TypeToken<List<UserBriefDetailResponse>>() {
-        }.getType());
+        return userMapper.toUserBriefDetailResponseList(userDtos);
     }
 
     private PagedResponse<UserBriefDetailResponse> mapToUserBriefDetailResponsePage(PagedResponse<UserDto> userDtoPage) {
@@ -1,11 +1,15 @@
 package com.thienan.lovebox.entity;
 
 import com.thienan.lovebox.entity.audit.DateAudit;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import javax.persistence.*;
 
 @Entity
 @Table(name = "bff_details")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "bffDetails")
 public class BffDetailEntity extends DateAudit {
 
     @Id
@@ -8,7 +8,10 @@ import java.util.HashSet;
 import java.util.Set;
 
 @Entity
-@Table(name = "couple_questions")
+@Table(name = "couple_questions", indexes = {
+        @Index(name = "idx_couple_questions_first_answerer_feed", columnList = "first_answerer_id, answered, answeredAt, id"),
+        @Index(name = "idx_couple_questions_second_answerer_feed", columnList = "second_answerer_id, answered, answeredAt, id")
+})
 public class CoupleQuestionEntity extends DateAudit {
 
     @Id
@@ -40,7 +43,7 @@ public class CoupleQuestionEntity extends DateAudit {
 
     private Instant answeredAt;
 
-    @ManyToMany(fetch = FetchType.EAGER)
+    @ManyToMany(fetch = FetchType.LAZY)
     @JoinTable(name = "couple_question_loves",
             joinColumns = @JoinColumn(name = "couple_question_id"),
             inverseJoinColumns = @JoinColumn(name = "user_id"))
@@ -1,11 +1,17 @@
 package com.thienan.lovebox.entity;
 
 import com.thienan.lovebox.entity.audit.DateAudit;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import javax.persistence.*;
 
 @Entity
-@Table(name = "photos")
+@Table(name = "photos", indexes = {
+        @Index(name = "idx_photos_content_hash", columnList = "content_hash")
+})
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "photos")
 public class PhotoEntity extends DateAudit {
 
     @Id
@@ -15,6 +21,17 @@ public class PhotoEntity extends DateAudit {
     @Column(nullable = false)
     private String url;
 
+    // Resized copies, see PhotoVariant; null for photos stored before variants existed
+    private String largeUrl;
+
+    private String mediumUrl;
+
+    private String smallUrl;
+
+    // Hex SHA-256 of the uploaded bytes, null for photos stored before hashing
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+
     public PhotoEntity() {
     }
 
@@ -22,6 +39,11 @@ public class PhotoEntity extends DateAudit {
         this.url = url;
     }
 
+    public PhotoEntity(String url, String contentHash) {
+        this.url = url;
+        this.contentHash = contentHash;
+    }
+
     public Long getId() {
         return id;
     }
@@ -37,4 +59,36 @@ public class PhotoEntity extends DateAudit {
     public void setUrl(String url) {
         this.url = url;
     }
+
+    public String getLargeUrl() {
+        return largeUrl;
+    }
+
+    public void setLargeUrl(String largeUrl) {
+        this.largeUrl = largeUrl;
+    }
+
+    public String getMediumUrl() {
+        return mediumUrl;
+    }
+
+    public void setMediumUrl(String mediumUrl) {
+        this.mediumUrl = mediumUrl;
+    }
+
+    public String getSmallUrl() {
+        return smallUrl;
+    }
+
+    public void setSmallUrl(String smallUrl) {
+        this.smallUrl = smallUrl;
+    }
+
+    public String getContentHash() {
+        return contentHash;
+    }
+
+    public void setContentHash(String contentHash) {
+        this.contentHash = contentHash;
+    }
 }
@@ -0,0 +1,77 @@
+package com.thienan.lovebox.entity;
+
+import com.thienan.lovebox.entity.audit.DateAudit;
+
+import javax.persistence.*;
+
+@Entity
+@Table(name = "photo_upload_jobs", indexes = {
+        @Index(name = "idx_photo_upload_jobs_user", columnList = "user_id")
+})
+public class PhotoUploadJobEntity extends DateAudit {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private PhotoUploadJobStatus status;
+
+    @ManyToOne
+    @JoinColumn(name = "photo_id")
+    private PhotoEntity photo;
+
+    private String errorMessage;
+
+    public PhotoUploadJobEntity() {
+    }
+
+    public PhotoUploadJobEntity(Long userId, PhotoUploadJobStatus status) {
+        this.userId = userId;
+        this.status = status;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public PhotoUploadJobStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(PhotoUploadJobStatus status) {
+        this.status = status;
+    }
+
+    public PhotoEntity getPhoto() {
+        return photo;
+    }
+
+    public void setPhoto(PhotoEntity photo) {
+        this.photo = photo;
+    }
+
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+
+    public void setErrorMessage(String errorMessage) {
+        this.errorMessage = errorMessage;
+    }
+}
@@ -0,0 +1,8 @@
+package com.thienan.lovebox.entity;
+
+public enum PhotoUploadJobStatus {
+    PENDING,
+    PROCESSING,
+    COMPLETED,
+    FAILED
+}
@@ -0,0 +1,22 @@
+package com.thienan.lovebox.entity;
+
+/**
+ * Renditions stored for every photo. The size bounds the longer side in pixels;
+ * ORIGINAL keeps the uploaded dimensions.
+ */
+public enum PhotoVariant {
+    ORIGINAL(0),
+    LARGE(512),
+    MEDIUM(128),
+    SMALL(48);
+
+    private final int size;
+
+    PhotoVariant(int size) {
+        this.size = size;
+    }
+
+    public int getSize() {
+        return size;
+    }
+}
@@ -0,0 +1,6 @@
+package com.thienan.lovebox.entity;
+
+public enum QuestionType {
+    SINGLE,
+    COUPLE
+}
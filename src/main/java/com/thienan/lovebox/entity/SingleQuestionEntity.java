@@ -8,7 +8,9 @@ import java.util.HashSet;
 import java.util.Set;
 
 @Entity
-@Table(name = "single_questions")
+@Table(name = "single_questions", indexes = {
+        @Index(name = "idx_single_questions_feed", columnList = "answerer_id, answered, answeredAt, id")
+})
 public class SingleQuestionEntity extends DateAudit {
 
     @Id
@@ -33,7 +35,7 @@ public class SingleQuestionEntity extends DateAudit {
 
     private Instant answeredAt;
 
-    @ManyToMany(fetch = FetchType.EAGER)
+    @ManyToMany(fetch = FetchType.LAZY)
     @JoinTable(name = "single_question_loves",
             joinColumns = @JoinColumn(name = "single_question_id"),
             inverseJoinColumns = @JoinColumn(name = "user_id"))
@@ -0,0 +1,74 @@
+package com.thienan.lovebox.entity;
+
+import javax.persistence.*;
+import java.time.Instant;
+
+@Entity
+@Table(name = "timeline_entries", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_timeline_entries_entry", columnNames = {"user_id", "question_type", "question_id"})
+}, indexes = {
+        @Index(name = "idx_timeline_entries_feed", columnList = "user_id, question_type, answered_at, question_id"),
+        @Index(name = "idx_timeline_entries_question", columnList = "question_type, question_id")
+})
+public class TimelineEntryEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "question_type", nullable = false, length = 10)
+    private QuestionType questionType;
+
+    @Column(name = "question_id", nullable = false)
+    private Long questionId;
+
+    @Column(name = "answered_at", nullable = false)
+    private Instant answeredAt;
+
+    public TimelineEntryEntity() {
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public QuestionType getQuestionType() {
+        return questionType;
+    }
+
+    public void setQuestionType(QuestionType questionType) {
+        this.questionType = questionType;
+    }
+
+    public Long getQuestionId() {
+        return questionId;
+    }
+
+    public void setQuestionId(Long questionId) {
+        this.questionId = questionId;
+    }
+
+    public Instant getAnsweredAt() {
+        return answeredAt;
+    }
+
+    public void setAnsweredAt(Instant answeredAt) {
+        this.answeredAt = answeredAt;
+    }
+}
@@ -1,13 +1,18 @@
 package com.thienan.lovebox.entity;
 
 import com.thienan.lovebox.entity.audit.DateAudit;
+import org.hibernate.Hibernate;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import javax.persistence.*;
 import java.util.HashSet;
 import java.util.Set;
 
 @Entity
-@Table(name = "users")
+@Table(name = "users", indexes = {
+        @Index(name = "idx_users_photo", columnList = "photo_id")
+})
 public class UserEntity extends DateAudit {
 
     @Id
@@ -32,23 +37,41 @@ public class UserEntity extends DateAudit {
     @Column(length = 50)
     private String moodMessage;
 
-    @OneToOne
+    // Identical uploads share one photo row, so several users may point at it
+    @ManyToOne
     private PhotoEntity photo;
 
+    // Caches the role ids per user; the roles themselves come from the roles region
     @ManyToMany(fetch = FetchType.LAZY)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "userRoles")
     @JoinTable(name = "user_roles",
             joinColumns = @JoinColumn(name = "user_id"),
             inverseJoinColumns = @JoinColumn(name = "role_id"))
     private Set<RoleEntity> roles = new HashSet<>();
 
-    @ManyToMany(fetch = FetchType.EAGER)
+    @ManyToMany(fetch = FetchType.LAZY)
     @JoinTable(name = "user_follows",
             joinColumns = @JoinColumn(name = "user_id"),
             inverseJoinColumns = @JoinColumn(name = "following_id"))
-    private Set<UserEntity> following;
+    private Set<UserEntity> following = new HashSet<>();
+
+    @ManyToMany(mappedBy = "following", fetch = FetchType.LAZY)
+    private Set<UserEntity> followers = new HashSet<>();
+
+    // Denormalized counters, only ever changed by atomic update queries
+    @Column(nullable = false, updatable = false)
+    private int followingCount;
 
-    @ManyToMany(mappedBy = "following")
-    private Set<UserEntity> followers;
+    @Column(nullable = false, updatable = false)
+    private int followersCount;
+
+    // Bumped to reject every token issued before a password or role change
+    @Column(nullable = false, updatable = false)
+    private int tokenVersion;
+
+    // Set once followers passed the fan-out threshold, some answers were never pushed since
+    @Column(nullable = false, updatable = false)
+    private boolean timelinePulled;
 
     @ManyToOne(fetch = FetchType.EAGER)
     @JoinColumn(name = "bff_detail_id")
@@ -156,12 +179,50 @@ public class UserEntity extends DateAudit {
         this.followers = followers;
     }
 
+    public int getFollowingCount() {
+        return followingCount;
+    }
+
+    public void setFollowingCount(int followingCount) {
+        this.followingCount = followingCount;
+    }
+
+    public int getFollowersCount() {
+        return followersCount;
+    }
+
+    public void setFollowersCount(int followersCount) {
+        this.followersCount = followersCount;
+    }
+
+    public int getTokenVersion() {
+        return tokenVersion;
+    }
+
+    public void setTokenVersion(int tokenVersion) {
+        this.tokenVersion = tokenVersion;
+    }
+
+    public boolean isTimelinePulled() {
+        return timelinePulled;
+    }
+
+    public void setTimelinePulled(boolean timelinePulled) {
+        this.timelinePulled = timelinePulled;
+    }
+
+    // The inverse side is only kept in sync when it is already loaded,
+    // so that following someone does not pull in all of their followers
     private void addFollower(UserEntity user) {
-        followers.add(user);
+        if (Hibernate.isInitialized(followers)) {
+            followers.add(user);
+        }
     }
 
     private void removeFollower(UserEntity user) {
-        followers.remove(user);
+        if (Hibernate.isInitialized(followers)) {
+            followers.remove(user);
+        }
     }
 
     public void addFollowing(UserEntity user) {
@@ -0,0 +1,53 @@
+package com.thienan.lovebox.entity;
+
+import javax.persistence.*;
+
+@Entity
+@Table(name = "username_trigrams", indexes = {
+        @Index(name = "idx_username_trigrams_posting", columnList = "trigram, user_id"),
+        @Index(name = "idx_username_trigrams_user", columnList = "user_id")
+})
+public class UsernameTrigramEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 3)
+    private String trigram;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    public UsernameTrigramEntity() {
+    }
+
+    public UsernameTrigramEntity(String trigram, Long userId) {
+        this.trigram = trigram;
+        this.userId = userId;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getTrigram() {
+        return trigram;
+    }
+
+    public void setTrigram(String trigram) {
+        this.trigram = trigram;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+}
@@ -0,0 +1,12 @@
+package com.thienan.lovebox.exception.service;
+
+public class NewsFeedServiceException extends RuntimeException {
+
+    public NewsFeedServiceException(String message) {
+        super(message);
+    }
+
+    public NewsFeedServiceException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,12 @@
+package com.thienan.lovebox.exception.service;
+
+public class PhotoUploadServiceException extends RuntimeException {
+
+    public PhotoUploadServiceException(String message) {
+        super(message);
+    }
+
+    public PhotoUploadServiceException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
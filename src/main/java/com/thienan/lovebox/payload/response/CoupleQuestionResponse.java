@@ -1,8 +1,6 @@
 package com.thienan.lovebox.payload.response;
 
 import java.time.Instant;
-import java.util.HashSet;
-import java.util.Set;
 
 public class CoupleQuestionResponse {
 
@@ -15,7 +13,8 @@ public class CoupleQuestionResponse {
     private String secondAnswerText;
     private boolean answered;
     private Instant answeredAt;
-    private Set<UserBriefDetailResponse> loves = new HashSet<>();
+    private long loveCount;
+    private boolean lovedByViewer;
 
     public Long getId() {
         return id;
@@ -89,11 +88,19 @@ public class CoupleQuestionResponse {
         this.answeredAt = answeredAt;
     }
 
-    public Set<UserBriefDetailResponse> getLoves() {
-        return loves;
+    public long getLoveCount() {
+        return loveCount;
     }
 
-    public void setLoves(Set<UserBriefDetailResponse> loves) {
-        this.loves = loves;
+    public void setLoveCount(long loveCount) {
+        this.loveCount = loveCount;
+    }
+
+    public boolean isLovedByViewer() {
+        return lovedByViewer;
+    }
+
+    public void setLovedByViewer(boolean lovedByViewer) {
+        this.lovedByViewer = lovedByViewer;
     }
 }
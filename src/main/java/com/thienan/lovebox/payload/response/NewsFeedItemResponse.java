@@ -0,0 +1,34 @@
+package com.thienan.lovebox.payload.response;
+
+import com.thienan.lovebox.entity.QuestionType;
+
+public class NewsFeedItemResponse {
+
+    private QuestionType questionType;
+    private SingleQuestionResponse singleQuestion;
+    private CoupleQuestionResponse coupleQuestion;
+
+    public QuestionType getQuestionType() {
+        return questionType;
+    }
+
+    public void setQuestionType(QuestionType questionType) {
+        this.questionType = questionType;
+    }
+
+    public SingleQuestionResponse getSingleQuestion() {
+        return singleQuestion;
+    }
+
+    public void setSingleQuestion(SingleQuestionResponse singleQuestion) {
+        this.singleQuestion = singleQuestion;
+    }
+
+    public CoupleQuestionResponse getCoupleQuestion() {
+        return coupleQuestion;
+    }
+
+    public void setCoupleQuestion(CoupleQuestionResponse coupleQuestion) {
+        this.coupleQuestion = coupleQuestion;
+    }
+}
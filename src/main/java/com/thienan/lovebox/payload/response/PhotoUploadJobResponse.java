@@ -0,0 +1,54 @@
+package com.thienan.lovebox.payload.response;
+
+import com.thienan.lovebox.entity.PhotoUploadJobStatus;
+
+import java.time.Instant;
+
+public class PhotoUploadJobResponse {
+
+    private Long id;
+    private PhotoUploadJobStatus status;
+    private PhotoResponse photo;
+    private String errorMessage;
+    private Instant createdAt;
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public PhotoUploadJobStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(PhotoUploadJobStatus status) {
+        this.status = status;
+    }
+
+    public PhotoResponse getPhoto() {
+        return photo;
+    }
+
+    public void setPhoto(PhotoResponse photo) {
+        this.photo = photo;
+    }
+
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+
+    public void setErrorMessage(String errorMessage) {
+        this.errorMessage = errorMessage;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Instant createdAt) {
+        this.createdAt = createdAt;
+    }
+}
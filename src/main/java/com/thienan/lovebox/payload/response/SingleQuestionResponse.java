@@ -1,7 +1,6 @@
 package com.thienan.lovebox.payload.response;
 
 import java.time.Instant;
-import java.util.Set;
 
 public class SingleQuestionResponse {
 
@@ -12,7 +11,8 @@ public class SingleQuestionResponse {
     private String answerText;
     private boolean answered;
     private Instant answeredAt;
-    private Set<UserBriefDetailResponse> loves;
+    private long loveCount;
+    private boolean lovedByViewer;
 
     public Long getId() {
         return id;
@@ -70,11 +70,19 @@ public class SingleQuestionResponse {
         this.answeredAt = answeredAt;
     }
 
-    public Set<UserBriefDetailResponse> getLoves() {
-        return loves;
+    public long getLoveCount() {
+        return loveCount;
     }
 
-    public void setLoves(Set<UserBriefDetailResponse> loves) {
-        this.loves = loves;
+    public void setLoveCount(long loveCount) {
+        this.loveCount = loveCount;
+    }
+
+    public boolean isLovedByViewer() {
+        return lovedByViewer;
+    }
+
+    public void setLovedByViewer(boolean lovedByViewer) {
+        this.lovedByViewer = lovedByViewer;
     }
 }
@@ -3,6 +3,7 @@ package com.thienan.lovebox.repository;
 import com.thienan.lovebox.entity.BffRequestEntity;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
@@ -21,10 +22,16 @@ public interface BffRequestRepository extends JpaRepository<BffRequestEntity, Lo
             countQuery = "select count(r) from BffRequestEntity r where r.fromUser.id = :userId")
     Page<BffRequestEntity> findAllSentBffRequestsByUserId(@Param("userId") Long userId, Pageable pageable);
 
+    @Query("select r from BffRequestEntity r where r.fromUser.id = :userId")
+    Slice<BffRequestEntity> findAllSentBffRequestsSliceByUserId(@Param("userId") Long userId, Pageable pageable);
+
     @Query(value = "select r from BffRequestEntity r where r.toUser.id = :userId",
             countQuery = "select count(r) from BffRequestEntity r where r.toUser.id = :userId")
     Page<BffRequestEntity> findAllReceivedBffRequestsByUserId(@Param("userId") Long userId, Pageable pageable);
 
+    @Query("select r from BffRequestEntity r where r.toUser.id = :userId")
+    Slice<BffRequestEntity> findAllReceivedBffRequestsSliceByUserId(@Param("userId") Long userId, Pageable pageable);
+
     @Transactional
     @Modifying
     @Query("delete from BffRequestEntity b where b.fromUser.id = :userId or b.toUser.id = :userId")
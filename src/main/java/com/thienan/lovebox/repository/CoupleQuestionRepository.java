@@ -3,6 +3,7 @@ package com.thienan.lovebox.repository;
 import com.thienan.lovebox.entity.CoupleQuestionEntity;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
@@ -11,21 +12,40 @@ import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
 import java.util.Set;
 
 @Repository
-public interface CoupleQuestionRepository extends JpaRepository<CoupleQuestionEntity, Long> {
+public interface CoupleQuestionRepository extends JpaRepository<CoupleQuestionEntity, Long>, CoupleQuestionRepositoryCustom {
 
     @Query(value = "select q from CoupleQuestionEntity q where (q.firstAnswerer.id in (:userIds) or q.secondAnswerer.id in (:userIds)) and q.answered = true",
             countQuery = "select count(q) from CoupleQuestionEntity q where (q.firstAnswerer.id in (:userIds) or q.secondAnswerer.id in (:userIds)) and q.answered = true")
     Page<CoupleQuestionEntity> findAllAnsweredQuestionsByUserIdsIn(@Param("userIds") Set<Long> userIds,
                                                                    Pageable pageable);
 
+    @Query(value = "select q from CoupleQuestionEntity q where (q.firstAnswerer.id in (:userIds) or q.secondAnswerer.id in (:userIds)) and q.answered = true " +
+            "order by q.answeredAt desc, q.id desc")
+    List<CoupleQuestionEntity> findAnsweredQuestionsByUserIdsIn(@Param("userIds") Set<Long> userIds,
+                                                                Pageable pageable);
+
+    @Query(value = "select q from CoupleQuestionEntity q where (q.firstAnswerer.id in (:userIds) or q.secondAnswerer.id in (:userIds)) and q.answered = true " +
+            "and (q.answeredAt < :answeredAt or q.answeredAt = :answeredAt and q.id < :id) " +
+            "order by q.answeredAt desc, q.id desc")
+    List<CoupleQuestionEntity> findAnsweredQuestionsByUserIdsInBefore(@Param("userIds") Set<Long> userIds,
+                                                                      @Param("answeredAt") Instant answeredAt,
+                                                                      @Param("id") Long id,
+                                                                      Pageable pageable);
+
     @Query(value = "select q from CoupleQuestionEntity q where (q.firstAnswerer.id = :userId or q.secondAnswerer.id = :userId) and q.answered = true",
             countQuery = "select count(q) from CoupleQuestionEntity q where (q.firstAnswerer.id = :userId or q.secondAnswerer.id = :userId) and q.answered = true")
     Page<CoupleQuestionEntity> findAllAnsweredQuestionsByUserId(@Param("userId") Long userId,
                                                                 Pageable pageable);
 
+    @Query("select q from CoupleQuestionEntity q where (q.firstAnswerer.id = :userId or q.secondAnswerer.id = :userId) and q.answered = true")
+    Slice<CoupleQuestionEntity> findAllAnsweredQuestionsSliceByUserId(@Param("userId") Long userId,
+                                                                      Pageable pageable);
+
     @Query(value = "select q from CoupleQuestionEntity q where (q.firstAnswerer.id = :userId and q.firstAnswerText = null " +
             "or q.secondAnswerer.id = :userId and q.secondAnswerText = null) and q.answered = false",
             countQuery = "select count(q) from CoupleQuestionEntity q where (q.firstAnswerer.id = :userId and q.firstAnswerText = null " +
@@ -33,26 +53,35 @@ public interface CoupleQuestionRepository extends JpaRepository<CoupleQuestionEn
     Page<CoupleQuestionEntity> findAllUnansweredQuestionsByUserId(@Param("userId") Long userId,
                                                                   Pageable pageable);
 
-    @Transactional
-    @Modifying(flushAutomatically = true, clearAutomatically = true)
-    @Query(value = "update CoupleQuestionEntity q set q.updatedAt = :answeredAt, q.firstAnswerText = :answerText where q.id = :id")
-    void answerQuestionByFirstAnswerer(@Param("id") Long id,
-                                       @Param("answeredAt") Instant answeredAt,
-                                       @Param("answerText") String answerText);
+    @Query("select q from CoupleQuestionEntity q where (q.firstAnswerer.id = :userId and q.firstAnswerText = null " +
+            "or q.secondAnswerer.id = :userId and q.secondAnswerText = null) and q.answered = false")
+    Slice<CoupleQuestionEntity> findAllUnansweredQuestionsSliceByUserId(@Param("userId") Long userId,
+                                                                        Pageable pageable);
 
-    @Transactional
-    @Modifying(flushAutomatically = true, clearAutomatically = true)
-    @Query(value = "update CoupleQuestionEntity q set q.updatedAt = :answeredAt, q.secondAnswerText = :answerText where q.id = :id")
-    void answerQuestionBySecondAnswerer(@Param("id") Long id,
-                                        @Param("answeredAt") Instant answeredAt,
-                                        @Param("answerText") String answerText);
+    @Query("select q.id as questionId, count(l) as loveCount, " +
+            "sum(case when l.id = :viewerId then 1 else 0 end) as viewerLoveCount " +
+            "from CoupleQuestionEntity q join q.loves l where q.id in (:ids) group by q.id")
+    List<QuestionLoveStats> findLoveStatsByIdIn(@Param("ids") Collection<Long> ids, @Param("viewerId") Long viewerId);
 
+    // True when the partner's text is already there. Only the other side's text is read, so the
+    // result is the same whether the database evaluates SET against old or freshly assigned values.
+    String PARTNER_HAS_ANSWERED = "(q.firstAnswerer.id = :userId and q.secondAnswerText is not null " +
+            "or q.secondAnswerer.id = :userId and q.firstAnswerText is not null)";
+
+    // Writes the answer and flips answered in one statement. The row lock makes simultaneous
+    // answers from both partners run one after the other, so the second one always sees the first.
     @Transactional
-    @Modifying
-    @Query(value = "update CoupleQuestionEntity q set q.updatedAt = :answeredAt, q.answeredAt = :answeredAt, q.answered = :answered where q.id = :id")
-    void setAnsweredQuestion(@Param("id") Long id,
-                             @Param("answeredAt") Instant answeredAt,
-                             @Param("answered") boolean answered);
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "update CoupleQuestionEntity q set q.updatedAt = :answeredAt, " +
+            "q.answered = case when " + PARTNER_HAS_ANSWERED + " then true else false end, " +
+            "q.answeredAt = case when " + PARTNER_HAS_ANSWERED + " then :answeredAt else null end, " +
+            "q.firstAnswerText = case when q.firstAnswerer.id = :userId then :answerText else q.firstAnswerText end, " +
+            "q.secondAnswerText = case when q.secondAnswerer.id = :userId then :answerText else q.secondAnswerText end " +
+            "where q.id = :id and q.answered = false and (q.firstAnswerer.id = :userId or q.secondAnswerer.id = :userId)")
+    int answerQuestion(@Param("id") Long id,
+                       @Param("userId") Long userId,
+                       @Param("answeredAt") Instant answeredAt,
+                       @Param("answerText") String answerText);
 
     @Transactional
     @Modifying(flushAutomatically = true, clearAutomatically = true)
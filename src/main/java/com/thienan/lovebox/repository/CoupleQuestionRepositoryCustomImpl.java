@@ -0,0 +1,22 @@
+package com.thienan.lovebox.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+public class CoupleQuestionRepositoryCustomImpl implements CoupleQuestionRepositoryCustom {
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Override
+    public int insertLove(Long questionId, Long userId) {
+        return jdbcTemplate.update("insert ignore into couple_question_loves (couple_question_id, user_id) values (?, ?)",
+                questionId, userId);
+    }
+
+    @Override
+    public int deleteLove(Long questionId, Long userId) {
+        return jdbcTemplate.update("delete from couple_question_loves where couple_question_id = ? and user_id = ?",
+                questionId, userId);
+    }
+}
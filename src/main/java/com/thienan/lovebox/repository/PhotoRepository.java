@@ -4,6 +4,10 @@ import com.thienan.lovebox.entity.PhotoEntity;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Optional;
+
 @Repository
 public interface PhotoRepository extends JpaRepository<PhotoEntity, Long> {
+
+    Optional<PhotoEntity> findFirstByContentHash(String contentHash);
 }
@@ -0,0 +1,13 @@
+package com.thienan.lovebox.repository;
+
+import com.thienan.lovebox.entity.PhotoUploadJobEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface PhotoUploadJobRepository extends JpaRepository<PhotoUploadJobEntity, Long> {
+
+    Optional<PhotoUploadJobEntity> findByIdAndUserId(Long id, Long userId);
+}
@@ -0,0 +1,13 @@
+package com.thienan.lovebox.repository;
+
+/**
+ * Love count of one question, and how many of those loves came from the viewer (0 or 1).
+ */
+public interface QuestionLoveStats {
+
+    Long getQuestionId();
+
+    Long getLoveCount();
+
+    Long getViewerLoveCount();
+}
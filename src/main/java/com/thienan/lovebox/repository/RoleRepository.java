@@ -3,12 +3,16 @@ package com.thienan.lovebox.repository;
 import com.thienan.lovebox.entity.RoleEntity;
 import com.thienan.lovebox.entity.RoleName;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
 import java.util.Optional;
 
 @Repository
 public interface RoleRepository extends JpaRepository<RoleEntity, Long> {
 
+    // Served from the query cache; the role rows themselves come from the roles region
+    @QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
     Optional<RoleEntity> findByName(RoleName roleName);
 }
@@ -3,6 +3,7 @@ package com.thienan.lovebox.repository;
 import com.thienan.lovebox.entity.SingleQuestionEntity;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
@@ -11,29 +12,55 @@ import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
 import java.util.Set;
 
 @Repository
-public interface SingleQuestionRepository extends JpaRepository<SingleQuestionEntity, Long> {
+public interface SingleQuestionRepository extends JpaRepository<SingleQuestionEntity, Long>, SingleQuestionRepositoryCustom {
 
     @Query(value = "select q from SingleQuestionEntity q where q.answerer.id in (:userIds) and q.answered = true",
             countQuery = "select count(q) from SingleQuestionEntity q where q.answerer.id in (:userIds) and q.answered = true")
     Page<SingleQuestionEntity> findAllAnsweredQuestionsByUserIdsIn(@Param("userIds") Set<Long> userIds,
                                                                    Pageable pageable);
 
+    @Query(value = "select q from SingleQuestionEntity q where q.answerer.id in (:userIds) and q.answered = true " +
+            "order by q.answeredAt desc, q.id desc")
+    List<SingleQuestionEntity> findAnsweredQuestionsByUserIdsIn(@Param("userIds") Set<Long> userIds,
+                                                                Pageable pageable);
+
+    @Query(value = "select q from SingleQuestionEntity q where q.answerer.id in (:userIds) and q.answered = true " +
+            "and (q.answeredAt < :answeredAt or q.answeredAt = :answeredAt and q.id < :id) " +
+            "order by q.answeredAt desc, q.id desc")
+    List<SingleQuestionEntity> findAnsweredQuestionsByUserIdsInBefore(@Param("userIds") Set<Long> userIds,
+                                                                      @Param("answeredAt") Instant answeredAt,
+                                                                      @Param("id") Long id,
+                                                                      Pageable pageable);
+
     @Query(value = "select q from SingleQuestionEntity q where q.answerer.id = :userId and q.answered = :answered",
             countQuery = "select count(q) from SingleQuestionEntity q where q.answerer.id = :userId and q.answered = :answered")
     Page<SingleQuestionEntity> findAllQuestionsByUserId(@Param("userId") Long userId,
                                                         @Param("answered") boolean answered,
                                                         Pageable pageable);
 
+    @Query("select q from SingleQuestionEntity q where q.answerer.id = :userId and q.answered = :answered")
+    Slice<SingleQuestionEntity> findAllQuestionsSliceByUserId(@Param("userId") Long userId,
+                                                              @Param("answered") boolean answered,
+                                                              Pageable pageable);
+
+    @Query("select q.id as questionId, count(l) as loveCount, " +
+            "sum(case when l.id = :viewerId then 1 else 0 end) as viewerLoveCount " +
+            "from SingleQuestionEntity q join q.loves l where q.id in (:ids) group by q.id")
+    List<QuestionLoveStats> findLoveStatsByIdIn(@Param("ids") Collection<Long> ids, @Param("viewerId") Long viewerId);
+
+    // Only one of several simultaneous answers gets past answered = false
     @Transactional
     @Modifying(flushAutomatically = true, clearAutomatically = true)
     @Query(value = "update SingleQuestionEntity q set q.updatedAt = :answeredAt, q.answered = true, " +
-            "q.answeredAt = :answeredAt, q.answerText = :answerText where q.id = :id")
-    void answerQuestion(@Param("id") Long id,
-                        @Param("answeredAt") Instant answeredAt,
-                        @Param("answerText") String answerText);
+            "q.answeredAt = :answeredAt, q.answerText = :answerText where q.id = :id and q.answered = false")
+    int answerQuestion(@Param("id") Long id,
+                       @Param("answeredAt") Instant answeredAt,
+                       @Param("answerText") String answerText);
 
     @Transactional
     @Modifying(flushAutomatically = true, clearAutomatically = true)
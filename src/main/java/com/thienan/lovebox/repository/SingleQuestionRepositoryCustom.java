@@ -0,0 +1,11 @@
+package com.thienan.lovebox.repository;
+
+/**
+ * Love toggles done through plain JDBC, so they leave the second-level cache alone.
+ */
+public interface SingleQuestionRepositoryCustom {
+
+    int insertLove(Long questionId, Long userId);
+
+    int deleteLove(Long questionId, Long userId);
+}
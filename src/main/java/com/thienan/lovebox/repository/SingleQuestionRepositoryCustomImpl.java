@@ -0,0 +1,22 @@
+package com.thienan.lovebox.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+public class SingleQuestionRepositoryCustomImpl implements SingleQuestionRepositoryCustom {
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Override
+    public int insertLove(Long questionId, Long userId) {
+        return jdbcTemplate.update("insert ignore into single_question_loves (single_question_id, user_id) values (?, ?)",
+                questionId, userId);
+    }
+
+    @Override
+    public int deleteLove(Long questionId, Long userId) {
+        return jdbcTemplate.update("delete from single_question_loves where single_question_id = ? and user_id = ?",
+                questionId, userId);
+    }
+}
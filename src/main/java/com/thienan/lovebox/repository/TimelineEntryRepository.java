@@ -0,0 +1,39 @@
+package com.thienan.lovebox.repository;
+
+import com.thienan.lovebox.entity.QuestionType;
+import com.thienan.lovebox.entity.TimelineEntryEntity;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface TimelineEntryRepository extends JpaRepository<TimelineEntryEntity, Long>, TimelineEntryRepositoryCustom {
+
+    @Query(value = "select t.questionId from TimelineEntryEntity t where t.userId = :userId and t.questionType = :questionType " +
+            "order by t.answeredAt desc, t.questionId desc")
+    List<Long> findQuestionIds(@Param("userId") Long userId,
+                               @Param("questionType") QuestionType questionType,
+                               Pageable pageable);
+
+    @Query(value = "select t.questionId from TimelineEntryEntity t where t.userId = :userId and t.questionType = :questionType " +
+            "and (t.answeredAt < :answeredAt or t.answeredAt = :answeredAt and t.questionId < :questionId) " +
+            "order by t.answeredAt desc, t.questionId desc")
+    List<Long> findQuestionIdsBefore(@Param("userId") Long userId,
+                                     @Param("questionType") QuestionType questionType,
+                                     @Param("answeredAt") Instant answeredAt,
+                                     @Param("questionId") Long questionId,
+                                     Pageable pageable);
+
+    @Transactional
+    @Modifying
+    @Query("delete from TimelineEntryEntity t where t.questionType = :questionType and t.questionId = :questionId")
+    void deleteAllByQuestion(@Param("questionType") QuestionType questionType,
+                             @Param("questionId") Long questionId);
+}
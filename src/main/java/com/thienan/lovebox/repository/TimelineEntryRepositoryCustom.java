@@ -0,0 +1,27 @@
+package com.thienan.lovebox.repository;
+
+import java.time.Instant;
+import java.util.Set;
+
+/**
+ * Timeline writes done through plain JDBC. A native query run by Hibernate declares no query
+ * spaces, so it would evict every second-level cache region on each answer and follow.
+ */
+public interface TimelineEntryRepositoryCustom {
+
+    void fanOut(String questionType, Long questionId, Instant answeredAt, Set<Long> authorIds, int threshold);
+
+    void backfillSingleQuestions(Long userId, Long authorId, int threshold, int limit);
+
+    void backfillCoupleQuestions(Long userId, Long authorId, int threshold, int limit);
+
+    void deleteAllByUserIdRange(Long afterUserId, Long lastUserId);
+
+    void rebuildSingleQuestions(int threshold, Long afterUserId, Long lastUserId);
+
+    void rebuildCoupleQuestions(int threshold, Long afterUserId, Long lastUserId);
+
+    void deleteAllSingleQuestionsByUserIdAndAuthorId(Long userId, Long authorId);
+
+    void deleteAllCoupleQuestionsByUserIdAndAuthorId(Long userId, Long authorId);
+}
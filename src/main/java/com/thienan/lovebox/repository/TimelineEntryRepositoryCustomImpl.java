@@ -0,0 +1,105 @@
+package com.thienan.lovebox.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Set;
+
+public class TimelineEntryRepositoryCustomImpl implements TimelineEntryRepositoryCustom {
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    @Override
+    public void fanOut(String questionType, Long questionId, Instant answeredAt, Set<Long> authorIds, int threshold) {
+        namedParameterJdbcTemplate.update("insert ignore into timeline_entries (user_id, question_type, question_id, answered_at) " +
+                        "select distinct f.user_id, :questionType, :questionId, :answeredAt from user_follows f " +
+                        "join users a on a.id = f.following_id " +
+                        "where f.following_id in (:authorIds) and a.followers_count <= :threshold",
+                new MapSqlParameterSource()
+                        .addValue("questionType", questionType)
+                        .addValue("questionId", questionId)
+                        .addValue("answeredAt", Timestamp.from(answeredAt))
+                        .addValue("authorIds", authorIds)
+                        .addValue("threshold", threshold));
+    }
+
+    // Copies the author's latest answers into one follower's timeline. Entries already there do not
+    // count towards the limit, and the ignore covers a concurrent fan-out of the same answer.
+    @Override
+    public void backfillSingleQuestions(Long userId, Long authorId, int threshold, int limit) {
+        jdbcTemplate.update("insert ignore into timeline_entries (user_id, question_type, question_id, answered_at) " +
+                        "select ?, 'SINGLE', q.id, q.answered_at from single_questions q join users a on a.id = q.answerer_id " +
+                        "where q.answerer_id = ? and q.answered = true " +
+                        "and a.followers_count <= ? and a.timeline_pulled = false " +
+                        "and not exists (select 1 from timeline_entries t where t.user_id = ? " +
+                        "and t.question_type = 'SINGLE' and t.question_id = q.id) " +
+                        "order by q.answered_at desc, q.id desc limit ?",
+                userId, authorId, threshold, userId, limit);
+    }
+
+    @Override
+    public void backfillCoupleQuestions(Long userId, Long authorId, int threshold, int limit) {
+        jdbcTemplate.update("insert ignore into timeline_entries (user_id, question_type, question_id, answered_at) " +
+                        "select ?, 'COUPLE', q.id, q.answered_at from couple_questions q join users a on a.id = ? " +
+                        "where (q.first_answerer_id = ? or q.second_answerer_id = ?) and q.answered = true " +
+                        "and a.followers_count <= ? and a.timeline_pulled = false " +
+                        "and not exists (select 1 from timeline_entries t where t.user_id = ? " +
+                        "and t.question_type = 'COUPLE' and t.question_id = q.id) " +
+                        "order by q.answered_at desc, q.id desc limit ?",
+                userId, authorId, authorId, authorId, threshold, userId, limit);
+    }
+
+    // The rebuild methods cover the timelines of users with afterUserId < id <= lastUserId
+    @Override
+    public void deleteAllByUserIdRange(Long afterUserId, Long lastUserId) {
+        jdbcTemplate.update("delete from timeline_entries where user_id > ? and user_id <= ?", afterUserId, lastUserId);
+    }
+
+    @Override
+    public void rebuildSingleQuestions(int threshold, Long afterUserId, Long lastUserId) {
+        jdbcTemplate.update("insert ignore into timeline_entries (user_id, question_type, question_id, answered_at) " +
+                        "select f.user_id, 'SINGLE', q.id, q.answered_at from single_questions q " +
+                        "join user_follows f on f.following_id = q.answerer_id " +
+                        "join users a on a.id = q.answerer_id " +
+                        "where q.answered = true and a.followers_count <= ? " +
+                        "and f.user_id > ? and f.user_id <= ?",
+                threshold, afterUserId, lastUserId);
+    }
+
+    @Override
+    public void rebuildCoupleQuestions(int threshold, Long afterUserId, Long lastUserId) {
+        jdbcTemplate.update("insert ignore into timeline_entries (user_id, question_type, question_id, answered_at) " +
+                        "select distinct f.user_id, 'COUPLE', q.id, q.answered_at from couple_questions q " +
+                        "join user_follows f on f.following_id in (q.first_answerer_id, q.second_answerer_id) " +
+                        "join users a on a.id = f.following_id " +
+                        "where q.answered = true and a.followers_count <= ? " +
+                        "and f.user_id > ? and f.user_id <= ?",
+                threshold, afterUserId, lastUserId);
+    }
+
+    @Override
+    public void deleteAllSingleQuestionsByUserIdAndAuthorId(Long userId, Long authorId) {
+        jdbcTemplate.update("delete t from timeline_entries t join single_questions q on q.id = t.question_id " +
+                        "where t.user_id = ? and t.question_type = 'SINGLE' and q.answerer_id = ?",
+                userId, authorId);
+    }
+
+    // Keeps entries of a couple question while the user still follows the other answerer
+    @Override
+    public void deleteAllCoupleQuestionsByUserIdAndAuthorId(Long userId, Long authorId) {
+        jdbcTemplate.update("delete t from timeline_entries t join couple_questions q on q.id = t.question_id " +
+                        "where t.user_id = ? and t.question_type = 'COUPLE' " +
+                        "and (q.first_answerer_id = ? or q.second_answerer_id = ?) " +
+                        "and not exists (select 1 from user_follows f where f.user_id = ? " +
+                        "and f.following_id in (q.first_answerer_id, q.second_answerer_id))",
+                userId, authorId, authorId, userId);
+    }
+}
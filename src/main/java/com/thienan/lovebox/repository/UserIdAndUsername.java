@@ -0,0 +1,11 @@
+package com.thienan.lovebox.repository;
+
+/**
+ * Id and username of one user, without loading the rest of the entity.
+ */
+public interface UserIdAndUsername {
+
+    Long getId();
+
+    String getUsername();
+}
@@ -3,15 +3,21 @@ package com.thienan.lovebox.repository;
 import com.thienan.lovebox.entity.UserEntity;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 @Repository
-public interface UserRepository extends JpaRepository<UserEntity, Long> {
+public interface UserRepository extends JpaRepository<UserEntity, Long>, UserRepositoryCustom {
+
+    String USERNAME_TRIGRAM_CANDIDATES = "select t.userId from UsernameTrigramEntity t where t.trigram in (:trigrams) " +
+            "group by t.userId having count(distinct t.trigram) = :trigramCount";
 
     Optional<UserEntity> findByEmail(String email);
 
@@ -19,19 +25,61 @@ public interface UserRepository extends JpaRepository<UserEntity, Long> {
 
     Optional<UserEntity> findByUsernameOrEmail(String username, String email);
 
+    @Query("select u from UserEntity u left join fetch u.photo where u.id > :afterId order by u.id")
+    List<UserEntity> findAllWithPhotoAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    @Query("select u.id as id, u.username as username from UserEntity u where u.id > :afterId order by u.id")
+    List<UserIdAndUsername> findAllIdsAndUsernamesAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    @Query("select u.id as id, u.username as username, u.email as email from UserEntity u where u.id > :afterId order by u.id")
+    List<UsernameAndEmail> findAllUsernamesAndEmailsAfter(@Param("afterId") Long afterId, Pageable pageable);
+
     Boolean existsByUsername(String username);
 
     Boolean existsByEmail(String email);
 
-    @Query(value = "select u from UserEntity u where u.username like %:username%",
-            countQuery = "select count(u) from UserEntity u where u.username like %:username%")
-    Page<UserEntity> findAllByUsername(@Param("username") String username, Pageable pageable);
+    @Query("select f.id from UserEntity u join u.following f where u.id = :id")
+    Set<Long> findAllFollowingIdsById(@Param("id") Long id);
+
+    @Query("select f.id from UserEntity u join u.following f where u.id = :id " +
+            "and (f.followersCount > :followersCount or f.timelinePulled = true)")
+    Set<Long> findAllPulledFollowingIdsById(@Param("id") Long id,
+                                            @Param("followersCount") int followersCount);
+
+    @Query("select count(f) > 0 from UserEntity u join u.following f where u.id = :id and f.id = :followingId")
+    Boolean existsFollowing(@Param("id") Long id, @Param("followingId") Long followingId);
+
+    @Query("select u.tokenVersion from UserEntity u where u.id = :id")
+    Integer findTokenVersionById(@Param("id") Long id);
+
+    // Candidates come from the trigram posting lists, the like only re-checks those candidates
+    @Query(value = "select u from UserEntity u where u.id in (" + USERNAME_TRIGRAM_CANDIDATES + ") " +
+            "and u.username like %:username%",
+            countQuery = "select count(u) from UserEntity u where u.id in (" + USERNAME_TRIGRAM_CANDIDATES + ") " +
+                    "and u.username like %:username%")
+    Page<UserEntity> findAllByUsername(@Param("username") String username,
+                                       @Param("trigrams") Set<String> trigrams,
+                                       @Param("trigramCount") long trigramCount,
+                                       Pageable pageable);
+
+    @Query("select u from UserEntity u where u.id in (" + USERNAME_TRIGRAM_CANDIDATES + ") " +
+            "and u.username like %:username%")
+    Slice<UserEntity> findAllSliceByUsername(@Param("username") String username,
+                                             @Param("trigrams") Set<String> trigrams,
+                                             @Param("trigramCount") long trigramCount,
+                                             Pageable pageable);
 
     @Query(value = "select u from UserEntity u left join u.followers f where f.id = :id",
             countQuery = "select count(u) from UserEntity u left join u.followers f where f.id = :id")
     Page<UserEntity> findAllFollowingById(@Param("id") Long id, Pageable pageable);
 
+    @Query("select u from UserEntity u left join u.followers f where f.id = :id")
+    Slice<UserEntity> findAllFollowingSliceById(@Param("id") Long id, Pageable pageable);
+
     @Query(value = "select u from UserEntity u left join u.following f where f.id = :id",
             countQuery = "select count(u) from UserEntity u left join u.following f where f.id = :id")
     Page<UserEntity> findAllFollowerById(@Param("id") Long id, Pageable pageable);
+
+    @Query("select u from UserEntity u left join u.following f where f.id = :id")
+    Slice<UserEntity> findAllFollowerSliceById(@Param("id") Long id, Pageable pageable);
 }
@@ -0,0 +1,26 @@
+package com.thienan.lovebox.repository;
+
+/**
+ * Writes to users and user_follows done through plain JDBC. Hibernate bulk statements would evict
+ * second-level cache regions: a native one every region, a JPQL one on UserEntity the cached roles.
+ */
+public interface UserRepositoryCustom {
+
+    int insertFollowing(Long id, Long followingId);
+
+    int deleteFollowing(Long id, Long followingId);
+
+    void updateFollowingCount(Long id, int delta);
+
+    void updateFollowersCount(Long id, int delta);
+
+    void updatePassword(Long id, String password);
+
+    void incrementTokenVersion(Long id);
+
+    void rebuildFollowCounters();
+
+    void markTimelinePulled(Long id, int threshold);
+
+    void resetTimelinePulled(int threshold);
+}
@@ -0,0 +1,59 @@
+package com.thienan.lovebox.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+public class UserRepositoryCustomImpl implements UserRepositoryCustom {
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Override
+    public int insertFollowing(Long id, Long followingId) {
+        return jdbcTemplate.update("insert ignore into user_follows (user_id, following_id) values (?, ?)",
+                id, followingId);
+    }
+
+    @Override
+    public int deleteFollowing(Long id, Long followingId) {
+        return jdbcTemplate.update("delete from user_follows where user_id = ? and following_id = ?",
+                id, followingId);
+    }
+
+    @Override
+    public void updateFollowingCount(Long id, int delta) {
+        jdbcTemplate.update("update users set following_count = following_count + ? where id = ?", delta, id);
+    }
+
+    @Override
+    public void updateFollowersCount(Long id, int delta) {
+        jdbcTemplate.update("update users set followers_count = followers_count + ? where id = ?", delta, id);
+    }
+
+    @Override
+    public void updatePassword(Long id, String password) {
+        jdbcTemplate.update("update users set password = ? where id = ?", password, id);
+    }
+
+    @Override
+    public void incrementTokenVersion(Long id) {
+        jdbcTemplate.update("update users set token_version = token_version + 1 where id = ?", id);
+    }
+
+    @Override
+    public void rebuildFollowCounters() {
+        jdbcTemplate.update("update users u set " +
+                "u.following_count = (select count(*) from user_follows f where f.user_id = u.id), " +
+                "u.followers_count = (select count(*) from user_follows f where f.following_id = u.id)");
+    }
+
+    @Override
+    public void markTimelinePulled(Long id, int threshold) {
+        jdbcTemplate.update("update users set timeline_pulled = true where id = ? and followers_count > ?", id, threshold);
+    }
+
+    @Override
+    public void resetTimelinePulled(int threshold) {
+        jdbcTemplate.update("update users u set u.timeline_pulled = (u.followers_count > ?)", threshold);
+    }
+}
@@ -0,0 +1,13 @@
+package com.thienan.lovebox.repository;
+
+/**
+ * Id, username and email of one user, without loading the rest of the entity.
+ */
+public interface UsernameAndEmail {
+
+    Long getId();
+
+    String getUsername();
+
+    String getEmail();
+}
@@ -0,0 +1,18 @@
+package com.thienan.lovebox.repository;
+
+import com.thienan.lovebox.entity.UsernameTrigramEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface UsernameTrigramRepository extends JpaRepository<UsernameTrigramEntity, Long> {
+
+    @Transactional
+    @Modifying
+    @Query("delete from UsernameTrigramEntity t where t.userId = :userId")
+    void deleteAllByUserId(@Param("userId") Long userId);
+}
@@ -4,17 +4,21 @@ import com.thienan.lovebox.entity.UserEntity;
 import com.thienan.lovebox.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 @Service
-public class CustomUserDetailsService implements UserDetailsService {
+public class CustomUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
 
     @Autowired
     UserRepository userRepository;
 
+    @Autowired
+    UserPrincipalCache userPrincipalCache;
+
     @Override
     @Transactional
     public UserDetails loadUserByUsername(String usernameOrEmail)
@@ -30,10 +34,21 @@ public class CustomUserDetailsService implements UserDetailsService {
 
     // This method is used by JWTAuthenticationFilter
     @Transactional
-    public UserDetails loadUserById(Long id) {
+    public UserPrincipal loadUserById(Long id) {
         UserEntity userEntity = userRepository.findById(id)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found with id : " + id));
 
         return UserPrincipal.create(userEntity);
     }
+
+    // Called after a successful login when the stored hash uses another BCrypt work factor
+    @Override
+    public UserDetails updatePassword(UserDetails userDetails, String newPassword) {
+        UserPrincipal userPrincipal = (UserPrincipal) userDetails;
+        userRepository.updatePassword(userPrincipal.getId(), newPassword);
+        userPrincipalCache.invalidate(userPrincipal.getId());
+
+        userPrincipal.setPassword(newPassword);
+        return userPrincipal;
+    }
 }
@@ -1,8 +1,11 @@
 package com.thienan.lovebox.security;
 
+import io.jsonwebtoken.Claims;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -24,6 +27,15 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     @Autowired
     private CustomUserDetailsService customUserDetailsService;
 
+    @Autowired
+    private UserPrincipalCache userPrincipalCache;
+
+    @Autowired
+    private TokenVersionCache tokenVersionCache;
+
+    @Value("${app.principalFromClaims}")
+    private boolean principalFromClaims;
+
     private static final Logger logger = LoggerFactory.getLogger(JwtAuthenticationFilter.class);
 
     @Override
@@ -31,9 +43,10 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         try {
             String jwt = getJwtFromRequest(request);
 
-            if (StringUtils.hasText(jwt) && jwtTokenProvider.validateToken(jwt)) {
-                Long userId = jwtTokenProvider.getUserIdFromJWT(jwt);
-                UserDetails userDetails = customUserDetailsService.loadUserById(userId);
+            Claims claims = StringUtils.hasText(jwt) ? jwtTokenProvider.parseClaims(jwt) : null;
+
+            if (claims != null && hasCurrentTokenVersion(claims)) {
+                UserDetails userDetails = getUserDetails(request, claims);
 
                 UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
                         userDetails,
@@ -50,6 +63,24 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
+    private boolean hasCurrentTokenVersion(Claims claims) {
+        Integer tokenVersion = tokenVersionCache.get(jwtTokenProvider.getUserIdFromClaims(claims));
+        return tokenVersion != null && tokenVersion == jwtTokenProvider.getTokenVersionFromClaims(claims);
+    }
+
+    // Reads are served from the token claims when enabled, writes always see the stored account
+    private UserDetails getUserDetails(HttpServletRequest request, Claims claims) {
+        if (principalFromClaims && HttpMethod.GET.matches(request.getMethod())) {
+            UserPrincipal userPrincipal = jwtTokenProvider.getUserPrincipalFromClaims(claims);
+            if (userPrincipal != null) {
+                return userPrincipal;
+            }
+        }
+
+        Long userId = jwtTokenProvider.getUserIdFromClaims(claims);
+        return userPrincipalCache.get(userId, customUserDetailsService::loadUserById);
+    }
+
     private String getJwtFromRequest(HttpServletRequest request) {
         String bearerToken = request.getHeader("Authorization");
 
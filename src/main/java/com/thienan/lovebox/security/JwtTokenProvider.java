@@ -1,26 +1,51 @@
 package com.thienan.lovebox.security;
 
 import io.jsonwebtoken.*;
+import io.jsonwebtoken.impl.TextCodec;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.stereotype.Component;
 
+import javax.annotation.PostConstruct;
+import javax.crypto.spec.SecretKeySpec;
+import java.security.Key;
+import java.util.Collection;
 import java.util.Date;
-import java.util.HashMap;
+import java.util.List;
+import java.util.stream.Collectors;
 
 @Component
 public class JwtTokenProvider {
 
     private static final Logger logger = LoggerFactory.getLogger(JwtTokenProvider.class);
 
+    private static final String USERNAME_CLAIM = "username";
+
+    private static final String ROLES_CLAIM = "roles";
+
+    private static final String TOKEN_VERSION_CLAIM = "ver";
+
     @Value("${app.jwtSecret}")
     private String jwtSecret;
 
     @Value("${app.jwtExpirationInMs}")
     private int jwtExpirationInMs;
 
+    private Key signingKey;
+
+    private JwtParser jwtParser;
+
+    @PostConstruct
+    public void init() {
+        // Same key derivation as signWith/setSigningKey with a base64 secret string, done once
+        signingKey = new SecretKeySpec(TextCodec.BASE64.decode(jwtSecret), SignatureAlgorithm.HS512.getJcaName());
+        jwtParser = Jwts.parser().setSigningKey(signingKey);
+    }
+
     public String generateToken(Authentication authentication) {
 
         UserPrincipal userPrincipal = (UserPrincipal) authentication.getPrincipal();
@@ -28,28 +53,60 @@ public class JwtTokenProvider {
         Date now = new Date();
         Date expiryDate = new Date(now.getTime() + jwtExpirationInMs);
 
+        List<String> roles = userPrincipal.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .collect(Collectors.toList());
+
         return Jwts.builder()
                 .setSubject(Long.toString(userPrincipal.getId()))
-                .claim("roles", userPrincipal.getAuthorities())
+                .claim(USERNAME_CLAIM, userPrincipal.getUsername())
+                .claim(ROLES_CLAIM, roles)
+                .claim(TOKEN_VERSION_CLAIM, userPrincipal.getTokenVersion())
                 .setIssuedAt(new Date())
                 .setExpiration(expiryDate)
-                .signWith(SignatureAlgorithm.HS512, jwtSecret)
+                .signWith(SignatureAlgorithm.HS512, signingKey)
                 .compact();
     }
 
-    Long getUserIdFromJWT(String token) {
-        Claims claims = Jwts.parser()
-                .setSigningKey(jwtSecret)
-                .parseClaimsJws(token)
-                .getBody();
-
+    Long getUserIdFromClaims(Claims claims) {
         return Long.parseLong(claims.getSubject());
     }
 
-    boolean validateToken(String authToken) {
+    // Tokens issued before versioning carry no version and count as version 0
+    int getTokenVersionFromClaims(Claims claims) {
+        Integer tokenVersion = claims.get(TOKEN_VERSION_CLAIM, Integer.class);
+        return tokenVersion == null ? 0 : tokenVersion;
+    }
+
+    /**
+     * Builds the principal from the verified claims alone, or returns null for tokens issued
+     * without a username claim. Only the id, username and authorities are set.
+     */
+    @SuppressWarnings("unchecked")
+    UserPrincipal getUserPrincipalFromClaims(Claims claims) {
+        String username = claims.get(USERNAME_CLAIM, String.class);
+        if (username == null) {
+            return null;
+        }
+
+        Collection<String> roles = claims.get(ROLES_CLAIM, Collection.class);
+        List<GrantedAuthority> authorities = roles.stream()
+                .map(SimpleGrantedAuthority::new)
+                .collect(Collectors.toList());
+
+        UserPrincipal userPrincipal = new UserPrincipal(getUserIdFromClaims(claims), username,
+                null, null, null, null, authorities);
+        userPrincipal.setTokenVersion(getTokenVersionFromClaims(claims));
+
+        return userPrincipal;
+    }
+
+    /**
+     * Verifies the token once and returns its claims, or null when the token is not valid.
+     */
+    Claims parseClaims(String authToken) {
         try {
-            Jwts.parser().setSigningKey(jwtSecret).parseClaimsJws(authToken);
-            return true;
+            return jwtParser.parseClaimsJws(authToken).getBody();
         } catch (SignatureException ex) {
             logger.error("Invalid JWT signature");
         } catch (MalformedJwtException ex) {
@@ -61,6 +118,6 @@ public class JwtTokenProvider {
         } catch (IllegalArgumentException ex) {
             logger.error("JWT claims string is empty.");
         }
-        return false;
+        return null;
     }
 }
@@ -0,0 +1,102 @@
+package com.thienan.lovebox.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.thienan.lovebox.exception.TooManyRequestsException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process token buckets for sign-in attempts, one per account and one per client address.
+ * Checked before any user lookup or password hashing. Behind a reverse proxy the client address
+ * is only right when server.use-forward-headers is on and the proxy is a trusted internal proxy.
+ */
+@Component
+public class SignInRateLimiter {
+
+    @Value("${app.signInAccountBurst}")
+    private int accountBurst;
+
+    @Value("${app.signInAccountIntervalInMs}")
+    private long accountIntervalInMs;
+
+    @Value("${app.signInAddressBurst}")
+    private int addressBurst;
+
+    @Value("${app.signInAddressIntervalInMs}")
+    private long addressIntervalInMs;
+
+    @Value("${app.signInRateLimiterMaximumSize}")
+    private long maximumSize;
+
+    private Cache<String, TokenBucket> accountBuckets;
+
+    private Cache<String, TokenBucket> addressBuckets;
+
+    @PostConstruct
+    public void init() {
+        accountBuckets = createBuckets(accountBurst, accountIntervalInMs);
+        addressBuckets = createBuckets(addressBurst, addressIntervalInMs);
+    }
+
+    public void checkSignIn(String usernameOrEmail, String clientAddress) {
+        long now = System.nanoTime();
+
+        TokenBucket addressBucket = addressBuckets.get(clientAddress,
+                key -> new TokenBucket(addressBurst, addressIntervalInMs));
+        if (!addressBucket.tryConsume(now)) {
+            throw new TooManyRequestsException("Too many sign-in attempts, please try again later");
+        }
+
+        TokenBucket accountBucket = accountBuckets.get(usernameOrEmail.toLowerCase(Locale.ROOT),
+                key -> new TokenBucket(accountBurst, accountIntervalInMs));
+        if (!accountBucket.tryConsume(now)) {
+            throw new TooManyRequestsException("Too many sign-in attempts, please try again later");
+        }
+    }
+
+    // An idle bucket is full again after burst * interval, so evicting it then loses nothing
+    private Cache<String, TokenBucket> createBuckets(int burst, long intervalInMs) {
+        return Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterAccess(burst * intervalInMs, TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    /**
+     * Token bucket kept as a single theoretical arrival time (GCRA), updated with compare-and-set.
+     */
+    private static class TokenBucket {
+
+        private final long intervalInNanos;
+
+        private final long toleranceInNanos;
+
+        private final AtomicLong theoreticalArrivalTime = new AtomicLong(Long.MIN_VALUE);
+
+        TokenBucket(int burst, long intervalInMs) {
+            this.intervalInNanos = TimeUnit.MILLISECONDS.toNanos(intervalInMs);
+            this.toleranceInNanos = intervalInNanos * burst;
+        }
+
+        boolean tryConsume(long now) {
+            while (true) {
+                long current = theoreticalArrivalTime.get();
+                long next = Math.max(current, now) + intervalInNanos;
+
+                if (next - now > toleranceInNanos) {
+                    return false;
+                }
+
+                if (theoreticalArrivalTime.compareAndSet(current, next)) {
+                    return true;
+                }
+            }
+        }
+    }
+}
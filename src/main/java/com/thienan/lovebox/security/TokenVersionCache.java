@@ -0,0 +1,47 @@
+package com.thienan.lovebox.security;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.thienan.lovebox.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Current token version per user id, so revoked tokens are rejected without a query per request.
+ * The TTL bounds how long another instance keeps accepting tokens after a version bump.
+ */
+@Component
+public class TokenVersionCache {
+
+    @Autowired
+    UserRepository userRepository;
+
+    @Value("${app.tokenVersionCacheMaximumSize}")
+    private long maximumSize;
+
+    @Value("${app.tokenVersionCacheTtlInMs}")
+    private long ttlInMs;
+
+    private LoadingCache<Long, Integer> cache;
+
+    @PostConstruct
+    public void init() {
+        cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttlInMs, TimeUnit.MILLISECONDS)
+                .build(userRepository::findTokenVersionById);
+    }
+
+    // Null when the user no longer exists
+    public Integer get(Long userId) {
+        return cache.get(userId);
+    }
+
+    public void invalidate(Long userId) {
+        cache.invalidate(userId);
+    }
+}
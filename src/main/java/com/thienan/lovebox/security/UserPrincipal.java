@@ -29,6 +29,9 @@ public class UserPrincipal implements UserDetails {
 
     private Collection<? extends GrantedAuthority> authorities;
 
+    @JsonIgnore
+    private int tokenVersion;
+
     public UserPrincipal(Long id, String username, String firstName, String lastName,
                          String email, String password, Collection<? extends GrantedAuthority> authorities) {
         this.id = id;
@@ -45,7 +48,7 @@ public class UserPrincipal implements UserDetails {
                 new SimpleGrantedAuthority(role.getName().name())
         ).collect(Collectors.toList());
 
-        return new UserPrincipal(
+        UserPrincipal userPrincipal = new UserPrincipal(
                 userEntity.getId(),
                 userEntity.getUsername(),
                 userEntity.getFirstName(),
@@ -54,6 +57,9 @@ public class UserPrincipal implements UserDetails {
                 userEntity.getPassword(),
                 authorities
         );
+        userPrincipal.setTokenVersion(userEntity.getTokenVersion());
+
+        return userPrincipal;
     }
 
     public Long getId() {
@@ -115,6 +121,14 @@ public class UserPrincipal implements UserDetails {
         this.authorities = authorities;
     }
 
+    public int getTokenVersion() {
+        return tokenVersion;
+    }
+
+    public void setTokenVersion(int tokenVersion) {
+        this.tokenVersion = tokenVersion;
+    }
+
     @Override
     public boolean isAccountNonExpired() {
         return true;
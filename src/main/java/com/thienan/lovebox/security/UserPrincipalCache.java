@@ -0,0 +1,42 @@
+package com.thienan.lovebox.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Bounded, time-limited cache of authenticated principals keyed by user id.
+ * Entries must be invalidated whenever the password, roles or account details change.
+ */
+@Component
+public class UserPrincipalCache {
+
+    @Value("${app.principalCacheMaximumSize}")
+    private long maximumSize;
+
+    @Value("${app.principalCacheTtlInMs}")
+    private long ttlInMs;
+
+    private Cache<Long, UserPrincipal> cache;
+
+    @PostConstruct
+    public void init() {
+        cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttlInMs, TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    public UserPrincipal get(Long userId, Function<Long, UserPrincipal> loader) {
+        return cache.get(userId, loader);
+    }
+
+    public void invalidate(Long userId) {
+        cache.invalidate(userId);
+    }
+}
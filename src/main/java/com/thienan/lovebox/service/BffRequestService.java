@@ -6,9 +6,9 @@ import org.springframework.data.domain.Pageable;
 
 public interface BffRequestService {
 
-    PagedResponse<BffRequestDto> getSentBffRequestByUserId(Long userId, Pageable pageable);
+    PagedResponse<BffRequestDto> getSentBffRequestByUserId(Long userId, Pageable pageable, boolean count);
 
-    PagedResponse<BffRequestDto> getReceivedBffRequestByUserId(Long userId, Pageable pageable);
+    PagedResponse<BffRequestDto> getReceivedBffRequestByUserId(Long userId, Pageable pageable, boolean count);
 
     BffRequestDto getBffRequest(Long id);
 
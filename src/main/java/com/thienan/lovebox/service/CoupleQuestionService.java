@@ -1,14 +1,23 @@
 package com.thienan.lovebox.service;
 
 import com.thienan.lovebox.shared.dto.CoupleQuestionDto;
+import com.thienan.lovebox.utils.CursorResponse;
+import com.thienan.lovebox.utils.FeedCursor;
 import com.thienan.lovebox.utils.PagedResponse;
 import org.springframework.data.domain.Pageable;
 
+import java.util.List;
+import java.util.Set;
+
 public interface CoupleQuestionService {
 
     PagedResponse<CoupleQuestionDto> getQuestionsInNewsFeed(Long userId, Pageable pageable);
 
-    PagedResponse<CoupleQuestionDto> getQuestionsByUserId(Long userId, boolean answered, Pageable pageable);
+    CursorResponse<CoupleQuestionDto> getQuestionsInNewsFeed(Long userId, String cursor, int size);
+
+    List<CoupleQuestionDto> getQuestionsInNewsFeed(Long userId, Set<Long> pulledUserIds, FeedCursor feedCursor, int limit);
+
+    PagedResponse<CoupleQuestionDto> getQuestionsByUserId(Long userId, boolean answered, Pageable pageable, boolean count);
 
     CoupleQuestionDto getQuestion(Long id);
 
@@ -18,7 +27,9 @@ public interface CoupleQuestionService {
 
     CoupleQuestionDto unanswerQuestion(Long id);
 
-    CoupleQuestionDto loveOrUnloveQuestion(Long id, Long userId);
+    void loadLoveStats(List<CoupleQuestionDto> coupleQuestionDtos, Long viewerId);
+
+    boolean loveOrUnloveQuestion(Long id, Long userId);
 
     void deleteQuestion(Long id);
 }
@@ -0,0 +1,8 @@
+package com.thienan.lovebox.service;
+
+import java.nio.file.Path;
+
+public interface LocalPhotoService extends PhotoService {
+
+    Path getPhotoPath(String fileName);
+}
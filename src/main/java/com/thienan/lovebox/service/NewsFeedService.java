@@ -0,0 +1,9 @@
+package com.thienan.lovebox.service;
+
+import com.thienan.lovebox.shared.dto.NewsFeedItemDto;
+import com.thienan.lovebox.utils.CursorResponse;
+
+public interface NewsFeedService {
+
+    CursorResponse<NewsFeedItemDto> getNewsFeed(Long userId, String cursor, int size);
+}
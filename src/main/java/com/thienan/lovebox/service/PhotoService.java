@@ -1,9 +1,10 @@
 package com.thienan.lovebox.service;
 
 import com.thienan.lovebox.shared.dto.PhotoDto;
-import org.springframework.web.multipart.MultipartFile;
+
+import java.io.File;
 
 public interface PhotoService {
 
-    PhotoDto uploadFile(MultipartFile multipartFile);
+    PhotoDto uploadFile(File file, String contentHash);
 }
@@ -0,0 +1,11 @@
+package com.thienan.lovebox.service;
+
+import com.thienan.lovebox.shared.dto.PhotoUploadJobDto;
+import org.springframework.web.multipart.MultipartFile;
+
+public interface PhotoUploadService {
+
+    PhotoUploadJobDto submitUserPhoto(Long userId, MultipartFile multipartFile);
+
+    PhotoUploadJobDto getUserPhotoJob(Long userId, Long jobId);
+}
@@ -0,0 +1,16 @@
+package com.thienan.lovebox.service;
+
+import com.thienan.lovebox.entity.PhotoVariant;
+
+import java.io.File;
+import java.util.Map;
+import java.util.Set;
+
+public interface PhotoVariantService {
+
+    Map<PhotoVariant, File> createVariants(File file);
+
+    Map<PhotoVariant, File> createVariants(File file, Set<PhotoVariant> variants);
+
+    void deleteVariants(Map<PhotoVariant, File> variants);
+}
@@ -0,0 +1,14 @@
+package com.thienan.lovebox.service;
+
+import com.thienan.lovebox.entity.QuestionType;
+
+public interface QuestionLoveBuffer {
+
+    boolean isEnabled();
+
+    boolean toggleLove(QuestionType questionType, Long questionId, Long userId);
+
+    Boolean getPendingLove(QuestionType questionType, Long questionId, Long userId);
+
+    void flush();
+}
@@ -1,14 +1,23 @@
 package com.thienan.lovebox.service;
 
+import com.thienan.lovebox.utils.CursorResponse;
+import com.thienan.lovebox.utils.FeedCursor;
 import com.thienan.lovebox.utils.PagedResponse;
 import com.thienan.lovebox.shared.dto.SingleQuestionDto;
 import org.springframework.data.domain.Pageable;
 
+import java.util.List;
+import java.util.Set;
+
 public interface SingleQuestionService {
 
     PagedResponse<SingleQuestionDto> getQuestionsInNewsFeed(Long userId, Pageable pageable);
 
-    PagedResponse<SingleQuestionDto> getQuestionsByUserId(Long userId, boolean answered, Pageable pageable);
+    CursorResponse<SingleQuestionDto> getQuestionsInNewsFeed(Long userId, String cursor, int size);
+
+    List<SingleQuestionDto> getQuestionsInNewsFeed(Long userId, Set<Long> pulledUserIds, FeedCursor feedCursor, int limit);
+
+    PagedResponse<SingleQuestionDto> getQuestionsByUserId(Long userId, boolean answered, Pageable pageable, boolean count);
 
     SingleQuestionDto getQuestion(Long id);
 
@@ -18,7 +27,9 @@ public interface SingleQuestionService {
 
     SingleQuestionDto unanswerQuestion(Long id);
 
-    SingleQuestionDto loveOrUnloveQuestion(Long id, Long userId);
+    void loadLoveStats(List<SingleQuestionDto> singleQuestionDtos, Long viewerId);
+
+    boolean loveOrUnloveQuestion(Long id, Long userId);
 
     void deleteQuestion(Long id);
 }
@@ -0,0 +1,25 @@
+package com.thienan.lovebox.service;
+
+import com.thienan.lovebox.entity.QuestionType;
+import com.thienan.lovebox.utils.FeedCursor;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+
+public interface TimelineService {
+
+    void pushQuestion(QuestionType questionType, Long questionId, Instant answeredAt, Set<Long> authorIds);
+
+    void removeQuestion(QuestionType questionType, Long questionId);
+
+    void addAuthor(Long userId, Long authorId);
+
+    void removeAuthor(Long userId, Long authorId);
+
+    List<Long> getQuestionIds(Long userId, QuestionType questionType, FeedCursor feedCursor, int limit);
+
+    Set<Long> getPulledAuthorIds(Long userId);
+
+    void rebuildTimelines();
+}
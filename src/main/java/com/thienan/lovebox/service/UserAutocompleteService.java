@@ -0,0 +1,14 @@
+package com.thienan.lovebox.service;
+
+import com.thienan.lovebox.shared.dto.UserDto;
+
+import java.util.List;
+
+public interface UserAutocompleteService {
+
+    List<UserDto> autocomplete(String prefix, int limit);
+
+    void indexUser(UserDto userDto);
+
+    void rebuildIndex();
+}
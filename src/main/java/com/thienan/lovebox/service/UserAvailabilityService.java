@@ -0,0 +1,12 @@
+package com.thienan.lovebox.service;
+
+public interface UserAvailabilityService {
+
+    boolean isUsernameAvailable(String username);
+
+    boolean isEmailAvailable(String email);
+
+    void addUser(String username, String email);
+
+    void rebuildFilters();
+}
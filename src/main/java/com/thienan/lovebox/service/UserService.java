@@ -1,9 +1,9 @@
 package com.thienan.lovebox.service;
 
+import com.thienan.lovebox.shared.dto.PhotoDto;
 import com.thienan.lovebox.shared.dto.UserDto;
 import com.thienan.lovebox.utils.PagedResponse;
 import org.springframework.data.domain.Pageable;
-import org.springframework.web.multipart.MultipartFile;
 
 public interface UserService {
 
@@ -15,9 +15,9 @@ public interface UserService {
 
     UserDto updateUser(Long id, UserDto userDto);
 
-    UserDto changeUserPhoto(Long id, MultipartFile multipartFile);
+    UserDto changeUserPhoto(Long id, PhotoDto photoDto);
 
-    UserDto changeUserPassword(Long id, String newPassword);
+    String changeUserPassword(Long id, String newPassword);
 
     Boolean checkUsernameAvailability(String username);
 
@@ -29,9 +29,9 @@ public interface UserService {
 
     Boolean checkUserHasFollow(Long id, Long followedUserId);
 
-    PagedResponse<UserDto> searchUsers(String username, Pageable pageable);
+    PagedResponse<UserDto> searchUsers(String username, Pageable pageable, boolean count);
 
-    PagedResponse<UserDto> getFollowing(Long id, Pageable pageable);
+    PagedResponse<UserDto> getFollowing(Long id, Pageable pageable, boolean count);
 
-    PagedResponse<UserDto> getFollowers(Long id, Pageable pageable);
+    PagedResponse<UserDto> getFollowers(Long id, Pageable pageable, boolean count);
 }
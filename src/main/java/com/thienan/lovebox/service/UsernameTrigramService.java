@@ -0,0 +1,12 @@
+package com.thienan.lovebox.service;
+
+import java.util.Set;
+
+public interface UsernameTrigramService {
+
+    Set<String> getTrigrams(String text);
+
+    void indexUsername(Long userId, String username);
+
+    void rebuildIndex();
+}
@@ -9,15 +9,14 @@ import com.thienan.lovebox.repository.BffRequestRepository;
 import com.thienan.lovebox.repository.UserRepository;
 import com.thienan.lovebox.service.BffRequestService;
 import com.thienan.lovebox.shared.dto.BffRequestDto;
+import com.thienan.lovebox.shared.mapper.BffRequestMapper;
 import com.thienan.lovebox.utils.PagedResponse;
 import org.modelmapper.ModelMapper;
-import org.modelmapper.TypeToken;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 
-import java.util.ArrayList;
 import java.util.List;
 
 @Service
@@ -32,18 +31,25 @@ public class BffRequestServiceImpl implements BffRequestService {
     @Autowired
     BffDetailRepository bffDetailRepository;
 
+    @Autowired
+    BffRequestMapper bffRequestMapper;
+
     @Autowired
     ModelMapper modelMapper;
 
     @Override
-    public PagedResponse<BffRequestDto> getSentBffRequestByUserId(Long userId, Pageable pageable) {
-        Page<BffRequestEntity> bffRequestPage = bffRequestRepository.findAllSentBffRequestsByUserId(userId, pageable);
+    public PagedResponse<BffRequestDto> getSentBffRequestByUserId(Long userId, Pageable pageable, boolean count) {
+        Slice<BffRequestEntity> bffRequestPage = count
+                ? bffRequestRepository.findAllSentBffRequestsByUserId(userId, pageable)
+                : bffRequestRepository.findAllSentBffRequestsSliceByUserId(userId, pageable);
         return mapToBffRequestDtoPage(bffRequestPage);
     }
 
     @Override
-    public PagedResponse<BffRequestDto> getReceivedBffRequestByUserId(Long userId, Pageable pageable) {
-        Page<BffRequestEntity> bffRequestPage = bffRequestRepository.findAllReceivedBffRequestsByUserId(userId, pageable);
+    public PagedResponse<BffRequestDto> getReceivedBffRequestByUserId(Long userId, Pageable pageable, boolean count) {
+        Slice<BffRequestEntity> bffRequestPage = count
+                ? bffRequestRepository.findAllReceivedBffRequestsByUserId(userId, pageable)
+                : bffRequestRepository.findAllReceivedBffRequestsSliceByUserId(userId, pageable);
         return mapToBffRequestDtoPage(bffRequestPage);
     }
 
@@ -153,26 +159,13 @@ public class BffRequestServiceImpl implements BffRequestService {
     }
 
     private BffRequestDto mapToBffRequestDto(BffRequestEntity bffRequestEntity) {
-        return modelMapper.map(bffRequestEntity, BffRequestDto.class);
-    }
-
-    private List<BffRequestDto> mapToBffRequestDtoList(List<BffRequestEntity> bffRequestEntities) {
-        List<BffRequestDto> bffRequestDtos = new ArrayList<>();
-
-        for(BffRequestEntity bffRequestEntity: bffRequestEntities) {
-            BffRequestDto bffRequestDto = mapToBffRequestDto(bffRequestEntity);
-            bffRequestDtos.add(bffRequestDto);
-        }
-
-        return bffRequestDtos;
+        return bffRequestMapper.toBffRequestDto(bffRequestEntity);
     }
 
-    private PagedResponse<BffRequestDto> mapToBffRequestDtoPage(Page<BffRequestEntity> bffRequestEntityPage) {
+    private PagedResponse<BffRequestDto> mapToBffRequestDtoPage(Slice<BffRequestEntity> bffRequestEntityPage) {
         List<BffRequestEntity> bffRequestEntities = bffRequestEntityPage.getContent();
-        List<BffRequestDto> bffRequestDtos = mapToBffRequestDtoList(bffRequestEntities);
+        List<BffRequestDto> bffRequestDtos = bffRequestMapper.toBffRequestDtoList(bffRequestEntities);
 
-        return new PagedResponse<>(bffRequestDtos, bffRequestEntityPage.getNumber(), bffRequestEntityPage.getSize(),
-                bffRequestEntityPage.getTotalElements(), bffRequestEntityPage.getTotalPages(),
-                bffRequestEntityPage.isFirst(), bffRequestEntityPage.isLast());
+        return new PagedResponse<>(bffRequestDtos, bffRequestEntityPage);
     }
 }
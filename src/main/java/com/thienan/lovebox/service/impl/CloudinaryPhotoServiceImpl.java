@@ -1,19 +1,25 @@
 package com.thienan.lovebox.service.impl;
 
 import com.cloudinary.Cloudinary;
+import com.cloudinary.Transformation;
 import com.cloudinary.utils.ObjectUtils;
 import com.thienan.lovebox.entity.PhotoEntity;
+import com.thienan.lovebox.entity.PhotoVariant;
 import com.thienan.lovebox.repository.PhotoRepository;
 import com.thienan.lovebox.service.PhotoService;
+import com.thienan.lovebox.service.PhotoVariantService;
 import com.thienan.lovebox.shared.dto.PhotoDto;
-import org.modelmapper.ModelMapper;
+import com.thienan.lovebox.shared.mapper.PhotoMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
-import org.springframework.web.multipart.MultipartFile;
 
+import java.io.File;
+import java.util.EnumSet;
 import java.util.Map;
 
 @Service
+@ConditionalOnProperty(name = "app.photoStorage", havingValue = "cloudinary", matchIfMissing = true)
 public class CloudinaryPhotoServiceImpl implements PhotoService {
 
     @Autowired
@@ -23,21 +29,42 @@ public class CloudinaryPhotoServiceImpl implements PhotoService {
     Cloudinary cloudinary;
 
     @Autowired
-    ModelMapper modelMapper;
+    PhotoMapper photoMapper;
 
+    @Autowired
+    PhotoVariantService photoVariantService;
+
+    // Only the cleaned original is uploaded; Cloudinary derives the smaller sizes on first request
     @Override
-    public PhotoDto uploadFile(MultipartFile multipartFile) {
+    public PhotoDto uploadFile(File file, String contentHash) {
+        Map<PhotoVariant, File> variants = photoVariantService.createVariants(file, EnumSet.of(PhotoVariant.ORIGINAL));
         try {
-            Map uploadResult = cloudinary.uploader().upload(multipartFile.getBytes(), ObjectUtils.emptyMap());
-            PhotoEntity photoEntity = new PhotoEntity(uploadResult.get("url").toString());
+            Map uploadResult = cloudinary.uploader().upload(variants.get(PhotoVariant.ORIGINAL), ObjectUtils.emptyMap());
+
+            PhotoEntity photoEntity = new PhotoEntity(uploadResult.get("url").toString(), contentHash);
+            photoEntity.setLargeUrl(variantUrl(uploadResult, PhotoVariant.LARGE));
+            photoEntity.setMediumUrl(variantUrl(uploadResult, PhotoVariant.MEDIUM));
+            photoEntity.setSmallUrl(variantUrl(uploadResult, PhotoVariant.SMALL));
+
             PhotoEntity savedPhotoEntity = photoRepository.save(photoEntity);
             return mapToPhotoDto(savedPhotoEntity);
         } catch (Exception e) {
             throw new RuntimeException(e);
+        } finally {
+            photoVariantService.deleteVariants(variants);
         }
     }
 
+    // "limit" fits the image inside the box without upscaling, like the local variants
+    private String variantUrl(Map uploadResult, PhotoVariant variant) {
+        return cloudinary.url()
+                .transformation(new Transformation().width(variant.getSize()).height(variant.getSize()).crop("limit"))
+                .version(uploadResult.get("version"))
+                .format(uploadResult.get("format").toString())
+                .generate(uploadResult.get("public_id").toString());
+    }
+
     private PhotoDto mapToPhotoDto(PhotoEntity photoEntity) {
-        return modelMapper.map(photoEntity, PhotoDto.class);
+        return photoMapper.toPhotoDto(photoEntity);
     }
 }
@@ -1,59 +1,134 @@
 package com.thienan.lovebox.service.impl;
 
 import com.thienan.lovebox.entity.CoupleQuestionEntity;
+import com.thienan.lovebox.entity.QuestionType;
 import com.thienan.lovebox.entity.UserEntity;
 import com.thienan.lovebox.exception.service.CoupleQuestionServiceException;
+import com.thienan.lovebox.repository.QuestionLoveStats;
 import com.thienan.lovebox.repository.CoupleQuestionRepository;
 import com.thienan.lovebox.repository.UserRepository;
+import com.thienan.lovebox.service.QuestionLoveBuffer;
 import com.thienan.lovebox.service.CoupleQuestionService;
+import com.thienan.lovebox.service.TimelineService;
 import com.thienan.lovebox.shared.dto.CoupleQuestionDto;
+import com.thienan.lovebox.shared.mapper.CoupleQuestionMapper;
+import com.thienan.lovebox.utils.CursorResponse;
+import com.thienan.lovebox.utils.DeadlockRetryTemplate;
+import com.thienan.lovebox.utils.FeedCursor;
 import com.thienan.lovebox.utils.PagedResponse;
 import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Instant;
-import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
 public class CoupleQuestionServiceImpl implements CoupleQuestionService {
 
+    private static final Comparator<CoupleQuestionEntity> NEWS_FEED_ORDER = Comparator
+            .comparing(CoupleQuestionEntity::getAnsweredAt)
+            .thenComparing(CoupleQuestionEntity::getId)
+            .reversed();
+
     @Autowired
     UserRepository userRepository;
 
     @Autowired
     CoupleQuestionRepository coupleQuestionRepository;
 
+    @Autowired
+    CoupleQuestionMapper coupleQuestionMapper;
+
+    @Autowired
+    TimelineService timelineService;
+
+    @Autowired
+    QuestionLoveBuffer questionLoveBuffer;
+
+    @Autowired
+    DeadlockRetryTemplate deadlockRetryTemplate;
+
     @Autowired
     ModelMapper modelMapper;
 
     @Override
     public PagedResponse<CoupleQuestionDto> getQuestionsInNewsFeed(Long userId, Pageable pageable) {
-        UserEntity userEntity = userRepository.findById(userId)
-                .orElseThrow(() -> new CoupleQuestionServiceException("User with ID " + userId + " not found"));
+        if (!userRepository.existsById(userId)) {
+            throw new CoupleQuestionServiceException("User with ID " + userId + " not found");
+        }
 
-        Set<Long> userIds = userEntity.getFollowing().stream().map(UserEntity::getId).collect(Collectors.toSet());
+        Set<Long> userIds = userRepository.findAllFollowingIdsById(userId);
         Page<CoupleQuestionEntity> coupleQuestionEntityPage = coupleQuestionRepository.findAllAnsweredQuestionsByUserIdsIn(userIds, pageable);
 
         return mapToCoupleQuestionDtoPage(coupleQuestionEntityPage);
     }
 
     @Override
-    public PagedResponse<CoupleQuestionDto> getQuestionsByUserId(Long userId, boolean answered, Pageable pageable) {
+    public CursorResponse<CoupleQuestionDto> getQuestionsInNewsFeed(Long userId, String cursor, int size) {
+        if (!userRepository.existsById(userId)) {
+            throw new CoupleQuestionServiceException("User with ID " + userId + " not found");
+        }
+
+        FeedCursor feedCursor = cursor == null ? null : FeedCursor.decode(cursor);
+        Set<Long> pulledUserIds = timelineService.getPulledAuthorIds(userId);
+
+        // One extra row tells whether there is a next page without counting
+        List<CoupleQuestionDto> coupleQuestionDtos = getQuestionsInNewsFeed(userId, pulledUserIds, feedCursor, size + 1);
+        return mapToCoupleQuestionDtoCursorResponse(coupleQuestionDtos, size);
+    }
+
+    @Override
+    public List<CoupleQuestionDto> getQuestionsInNewsFeed(Long userId, Set<Long> pulledUserIds, FeedCursor feedCursor, int limit) {
+        Map<Long, CoupleQuestionEntity> coupleQuestionEntities = new HashMap<>();
+
+        List<Long> questionIds = timelineService.getQuestionIds(userId, QuestionType.COUPLE, feedCursor, limit);
+        for (CoupleQuestionEntity coupleQuestionEntity : coupleQuestionRepository.findAllById(questionIds)) {
+            coupleQuestionEntities.put(coupleQuestionEntity.getId(), coupleQuestionEntity);
+        }
+
+        // Answers of authors above the fan-out threshold are never pushed, so pull them here
+        if (!pulledUserIds.isEmpty()) {
+            for (CoupleQuestionEntity coupleQuestionEntity : findAnsweredQuestionsByUserIdsIn(pulledUserIds, feedCursor, limit)) {
+                coupleQuestionEntities.put(coupleQuestionEntity.getId(), coupleQuestionEntity);
+            }
+        }
+
+        List<CoupleQuestionEntity> sortedCoupleQuestionEntities = coupleQuestionEntities.values().stream()
+                .filter(CoupleQuestionEntity::isAnswered)
+                .sorted(NEWS_FEED_ORDER)
+                .limit(limit)
+                .collect(Collectors.toList());
+
+        return coupleQuestionMapper.toCoupleQuestionDtoList(sortedCoupleQuestionEntities);
+    }
+
+    @Override
+    public PagedResponse<CoupleQuestionDto> getQuestionsByUserId(Long userId, boolean answered, Pageable pageable, boolean count) {
         UserEntity userEntity = userRepository.findById(userId)
                 .orElseThrow(() -> new CoupleQuestionServiceException("User with ID " + userId + " not found"));
 
-        Page<CoupleQuestionEntity> coupleQuestionEntityPage;
+        Slice<CoupleQuestionEntity> coupleQuestionEntityPage;
         if (answered) {
-            coupleQuestionEntityPage = coupleQuestionRepository.findAllAnsweredQuestionsByUserId(userId, pageable);
+            coupleQuestionEntityPage = count
+                    ? coupleQuestionRepository.findAllAnsweredQuestionsByUserId(userId, pageable)
+                    : coupleQuestionRepository.findAllAnsweredQuestionsSliceByUserId(userId, pageable);
         } else {
-            coupleQuestionEntityPage = coupleQuestionRepository.findAllUnansweredQuestionsByUserId(userId, pageable);
+            coupleQuestionEntityPage = count
+                    ? coupleQuestionRepository.findAllUnansweredQuestionsByUserId(userId, pageable)
+                    : coupleQuestionRepository.findAllUnansweredQuestionsSliceByUserId(userId, pageable);
         }
 
         return mapToCoupleQuestionDtoPage(coupleQuestionEntityPage);
@@ -77,35 +152,33 @@ public class CoupleQuestionServiceImpl implements CoupleQuestionService {
     @Override
     @Transactional
     public CoupleQuestionDto answerQuestion(Long id, Long userId, String answerText) {
+        Instant answeredAt = Instant.now();
+        int updatedRows = coupleQuestionRepository.answerQuestion(id, userId, answeredAt, answerText);
+
+        // MySQL has no UPDATE ... RETURNING, so read the row back; it stays locked until commit
         CoupleQuestionEntity coupleQuestionEntity = coupleQuestionRepository.findById(id)
                 .orElseThrow(() -> new CoupleQuestionServiceException("Couple question with ID " + id + " not found"));
 
-        if (coupleQuestionEntity.isAnswered()) {
-            throw new CoupleQuestionServiceException("Couple question has been answered");
-        }
-
-        UserEntity userEntity = userRepository.findById(userId)
-                .orElseThrow(() -> new CoupleQuestionServiceException("User with ID " + userId + " not found"));
-
-        if (userEntity.getId().equals(coupleQuestionEntity.getFirstAnswerer().getId())) {
-            coupleQuestionRepository.answerQuestionByFirstAnswerer(id, Instant.now(), answerText);
-            if (coupleQuestionEntity.getSecondAnswerText() != null) {
-                coupleQuestionRepository.setAnsweredQuestion(id, Instant.now(), true);
-            }
-        } else if (userEntity.getId().equals(coupleQuestionEntity.getSecondAnswerer().getId())) {
-            coupleQuestionRepository.answerQuestionBySecondAnswerer(id, Instant.now(), answerText);
-            if (coupleQuestionEntity.getFirstAnswerText() != null) {
-                coupleQuestionRepository.setAnsweredQuestion(id, Instant.now(), true);
+        if (updatedRows == 0) {
+            if (coupleQuestionEntity.isAnswered()) {
+                throw new CoupleQuestionServiceException("Couple question has been answered");
             }
+            throw new CoupleQuestionServiceException("User with ID " + userId + " cannot answer couple question with ID " + id);
         }
 
-        CoupleQuestionEntity answeredCoupleQuestionEntity = coupleQuestionRepository.findById(id)
-                .orElseThrow(() -> new CoupleQuestionServiceException("Couple question with ID " + id + " not found"));
+        // Only this statement can have flipped the flag, since it required answered = false
+        if (coupleQuestionEntity.isAnswered()) {
+            Set<Long> authorIds = new HashSet<>(Arrays.asList(
+                    coupleQuestionEntity.getFirstAnswerer().getId(),
+                    coupleQuestionEntity.getSecondAnswerer().getId()));
+            timelineService.pushQuestion(QuestionType.COUPLE, id, coupleQuestionEntity.getAnsweredAt(), authorIds);
+        }
 
-        return mapToCoupleQuestionDto(answeredCoupleQuestionEntity);
+        return mapToCoupleQuestionDto(coupleQuestionEntity);
     }
 
     @Override
+    @Transactional
     public CoupleQuestionDto unanswerQuestion(Long id) {
         CoupleQuestionEntity coupleQuestionEntity = coupleQuestionRepository.findById(id)
                 .orElseThrow(() -> new CoupleQuestionServiceException("Couple question with ID " + id + " not found"));
@@ -115,6 +188,7 @@ public class CoupleQuestionServiceImpl implements CoupleQuestionService {
         }
 
         coupleQuestionRepository.unanswerQuestion(id, Instant.now());
+        timelineService.removeQuestion(QuestionType.COUPLE, id);
 
         CoupleQuestionEntity unansweredCoupleQuestionEntity = coupleQuestionRepository.findById(id)
                 .orElseThrow(() -> new CoupleQuestionServiceException("Couple question with ID " + id + " not found"));
@@ -123,22 +197,51 @@ public class CoupleQuestionServiceImpl implements CoupleQuestionService {
     }
 
     @Override
-    public CoupleQuestionDto loveOrUnloveQuestion(Long id, Long userId) {
-        CoupleQuestionEntity coupleQuestionEntity = coupleQuestionRepository.findById(id)
-                .orElseThrow(() -> new CoupleQuestionServiceException("Couple question with ID " + id + " not found"));
+    public void loadLoveStats(List<CoupleQuestionDto> coupleQuestionDtos, Long viewerId) {
+        if (coupleQuestionDtos.isEmpty()) {
+            return;
+        }
 
-        UserEntity userEntity = userRepository.findById(userId).orElseThrow(() ->
-                new CoupleQuestionServiceException("User with ID " + id + " not found")
-        );
+        Map<Long, CoupleQuestionDto> coupleQuestionDtosById = new HashMap<>();
+        for (CoupleQuestionDto coupleQuestionDto : coupleQuestionDtos) {
+            coupleQuestionDtosById.put(coupleQuestionDto.getId(), coupleQuestionDto);
+        }
 
-        if (!coupleQuestionEntity.getLoves().contains(userEntity)) {
-            coupleQuestionEntity.getLoves().add(userEntity);
-        } else {
-            coupleQuestionEntity.getLoves().remove(userEntity);
+        // Questions without loves have no row here and keep the zero defaults
+        for (QuestionLoveStats questionLoveStats : coupleQuestionRepository
+                .findLoveStatsByIdIn(coupleQuestionDtosById.keySet(), viewerId)) {
+            CoupleQuestionDto coupleQuestionDto = coupleQuestionDtosById.get(questionLoveStats.getQuestionId());
+            coupleQuestionDto.setLoveCount(questionLoveStats.getLoveCount());
+            coupleQuestionDto.setLovedByViewer(questionLoveStats.getViewerLoveCount() > 0);
         }
 
-        CoupleQuestionEntity lovedCoupleQuestionEntity = coupleQuestionRepository.save(coupleQuestionEntity);
-        return mapToCoupleQuestionDto(lovedCoupleQuestionEntity);
+        // The viewer's own unflushed toggles go on top, so a tap shows up right away
+        if (viewerId != null && questionLoveBuffer.isEnabled()) {
+            for (CoupleQuestionDto coupleQuestionDto : coupleQuestionDtos) {
+                Boolean pendingLove = questionLoveBuffer.getPendingLove(QuestionType.COUPLE, coupleQuestionDto.getId(), viewerId);
+                if (pendingLove != null && pendingLove != coupleQuestionDto.isLovedByViewer()) {
+                    coupleQuestionDto.setLoveCount(coupleQuestionDto.getLoveCount() + (pendingLove ? 1 : -1));
+                    coupleQuestionDto.setLovedByViewer(pendingLove);
+                }
+            }
+        }
+    }
+
+    @Override
+    public boolean loveOrUnloveQuestion(Long id, Long userId) {
+        if (questionLoveBuffer.isEnabled()) {
+            return questionLoveBuffer.toggleLove(QuestionType.COUPLE, id, userId);
+        }
+
+        return deadlockRetryTemplate.execute(() -> {
+            // Deleting first decides love or unlove atomically on the join row
+            if (coupleQuestionRepository.deleteLove(id, userId) > 0) {
+                return false;
+            }
+
+            coupleQuestionRepository.insertLove(id, userId);
+            return true;
+        });
     }
 
     @Override
@@ -153,31 +256,42 @@ public class CoupleQuestionServiceImpl implements CoupleQuestionService {
         coupleQuestionRepository.delete(coupleQuestionEntity);
     }
 
+    private List<CoupleQuestionEntity> findAnsweredQuestionsByUserIdsIn(Set<Long> userIds, FeedCursor feedCursor, int limit) {
+        Pageable pageable = PageRequest.of(0, limit);
+
+        if (feedCursor == null) {
+            return coupleQuestionRepository.findAnsweredQuestionsByUserIdsIn(userIds, pageable);
+        }
+
+        return coupleQuestionRepository.findAnsweredQuestionsByUserIdsInBefore(
+                userIds, feedCursor.getAnsweredAt(), feedCursor.getId(), pageable);
+    }
+
     private CoupleQuestionEntity mapToCoupleQuestionEntity(CoupleQuestionDto coupleQuestionDto) {
         return modelMapper.map(coupleQuestionDto, CoupleQuestionEntity.class);
     }
 
     private CoupleQuestionDto mapToCoupleQuestionDto(CoupleQuestionEntity coupleQuestionEntity) {
-        return modelMapper.map(coupleQuestionEntity, CoupleQuestionDto.class);
+        return coupleQuestionMapper.toCoupleQuestionDto(coupleQuestionEntity);
     }
 
-    private List<CoupleQuestionDto> mapToListCoupleQuestionDto(List<CoupleQuestionEntity> coupleQuestionEntities) {
-        List<CoupleQuestionDto> coupleQuestionDtos = new ArrayList<>();
-
-        for (CoupleQuestionEntity coupleQuestionEntity : coupleQuestionEntities) {
-            CoupleQuestionDto coupleQuestionDto = mapToCoupleQuestionDto(coupleQuestionEntity);
-            coupleQuestionDtos.add(coupleQuestionDto);
-        }
+    private PagedResponse<CoupleQuestionDto> mapToCoupleQuestionDtoPage(Slice<CoupleQuestionEntity> coupleQuestionEntityPage) {
+        List<CoupleQuestionEntity> coupleQuestionEntities = coupleQuestionEntityPage.getContent();
+        List<CoupleQuestionDto> coupleQuestionDtos = coupleQuestionMapper.toCoupleQuestionDtoList(coupleQuestionEntities);
 
-        return coupleQuestionDtos;
+        return new PagedResponse<>(coupleQuestionDtos, coupleQuestionEntityPage);
     }
 
-    private PagedResponse<CoupleQuestionDto> mapToCoupleQuestionDtoPage(Page<CoupleQuestionEntity> coupleQuestionEntityPage) {
-        List<CoupleQuestionEntity> coupleQuestionEntities = coupleQuestionEntityPage.getContent();
-        List<CoupleQuestionDto> coupleQuestionDtos = mapToListCoupleQuestionDto(coupleQuestionEntities);
+    private CursorResponse<CoupleQuestionDto> mapToCoupleQuestionDtoCursorResponse(List<CoupleQuestionDto> coupleQuestionDtos,
+                                                                                  int size) {
+        String nextCursor = null;
+
+        if (coupleQuestionDtos.size() > size) {
+            coupleQuestionDtos = coupleQuestionDtos.subList(0, size);
+            CoupleQuestionDto lastCoupleQuestionDto = coupleQuestionDtos.get(size - 1);
+            nextCursor = new FeedCursor(lastCoupleQuestionDto.getAnsweredAt(), lastCoupleQuestionDto.getId()).encode();
+        }
 
-        return new PagedResponse<>(coupleQuestionDtos, coupleQuestionEntityPage.getNumber(), coupleQuestionEntityPage.getSize(),
-                coupleQuestionEntityPage.getTotalElements(), coupleQuestionEntityPage.getTotalPages(),
-                coupleQuestionEntityPage.isFirst(), coupleQuestionEntityPage.isLast());
+        return new CursorResponse<>(coupleQuestionDtos, nextCursor);
     }
 }
@@ -0,0 +1,120 @@
+package com.thienan.lovebox.service.impl;
+
+import com.thienan.lovebox.entity.PhotoEntity;
+import com.thienan.lovebox.entity.PhotoVariant;
+import com.thienan.lovebox.exception.service.PhotoUploadServiceException;
+import com.thienan.lovebox.repository.PhotoRepository;
+import com.thienan.lovebox.service.LocalPhotoService;
+import com.thienan.lovebox.service.PhotoVariantService;
+import com.thienan.lovebox.shared.dto.PhotoDto;
+import com.thienan.lovebox.shared.mapper.PhotoMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+/**
+ * Stores photos on local disk and serves them from {@code /api/photos}. Copies go channel to
+ * channel, so file contents never pass through the heap. Meant for self-hosting and load tests.
+ */
+@Service
+@ConditionalOnProperty(name = "app.photoStorage", havingValue = "local")
+public class LocalPhotoServiceImpl implements LocalPhotoService {
+
+    private static final Pattern FILE_NAME_PATTERN = Pattern.compile("[0-9a-f]{8}(-[0-9a-f]{4}){3}-[0-9a-f]{12}\\.(jpg|png)");
+
+    @Value("${app.localPhotoStorageDir}")
+    private String localPhotoStorageDir;
+
+    @Value("${app.localPhotoBaseUrl}")
+    private String localPhotoBaseUrl;
+
+    @Autowired
+    PhotoRepository photoRepository;
+
+    @Autowired
+    PhotoVariantService photoVariantService;
+
+    @Autowired
+    PhotoMapper photoMapper;
+
+    private Path storageDir;
+
+    @PostConstruct
+    public void init() throws IOException {
+        storageDir = Files.createDirectories(Paths.get(localPhotoStorageDir)).toAbsolutePath();
+    }
+
+    @Override
+    public PhotoDto uploadFile(File file, String contentHash) {
+        Map<PhotoVariant, File> variants = photoVariantService.createVariants(file);
+        try {
+            PhotoEntity photoEntity = new PhotoEntity(store(variants.get(PhotoVariant.ORIGINAL)), contentHash);
+            photoEntity.setLargeUrl(store(variants.get(PhotoVariant.LARGE)));
+            photoEntity.setMediumUrl(store(variants.get(PhotoVariant.MEDIUM)));
+            photoEntity.setSmallUrl(store(variants.get(PhotoVariant.SMALL)));
+
+            PhotoEntity savedPhotoEntity = photoRepository.save(photoEntity);
+            return photoMapper.toPhotoDto(savedPhotoEntity);
+        } finally {
+            photoVariantService.deleteVariants(variants);
+        }
+    }
+
+    private String store(File file) {
+        String fileName = UUID.randomUUID().toString() + getExtension(file);
+        Path partialFile = storageDir.resolve(fileName + ".part");
+
+        try {
+            try (FileChannel source = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+                 FileChannel target = FileChannel.open(partialFile, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+                long size = source.size();
+                long position = 0;
+                while (position < size) {
+                    position += target.transferFrom(source, position, size - position);
+                }
+            }
+
+            // Readers only ever see complete files
+            Files.move(partialFile, storageDir.resolve(fileName), StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException ex) {
+            try {
+                Files.deleteIfExists(partialFile);
+            } catch (IOException ignored) {
+                // The original failure is the one worth reporting
+            }
+            throw new PhotoUploadServiceException("Could not store photo", ex);
+        }
+
+        return localPhotoBaseUrl + "/" + fileName;
+    }
+
+    // Null when the name was not issued by this service, which also rules out path traversal
+    @Override
+    public Path getPhotoPath(String fileName) {
+        if (fileName == null || !FILE_NAME_PATTERN.matcher(fileName).matches()) {
+            return null;
+        }
+
+        Path path = storageDir.resolve(fileName);
+        return Files.isRegularFile(path) ? path : null;
+    }
+
+    // Variants are always written as .jpg or .png
+    private String getExtension(File file) {
+        return file.getName().endsWith(".png") ? ".png" : ".jpg";
+    }
+}
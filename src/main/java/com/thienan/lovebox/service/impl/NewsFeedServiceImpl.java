@@ -0,0 +1,139 @@
+package com.thienan.lovebox.service.impl;
+
+import com.thienan.lovebox.entity.QuestionType;
+import com.thienan.lovebox.exception.BadRequestException;
+import com.thienan.lovebox.exception.service.NewsFeedServiceException;
+import com.thienan.lovebox.repository.UserRepository;
+import com.thienan.lovebox.service.CoupleQuestionService;
+import com.thienan.lovebox.service.NewsFeedService;
+import com.thienan.lovebox.service.SingleQuestionService;
+import com.thienan.lovebox.service.TimelineService;
+import com.thienan.lovebox.shared.dto.CoupleQuestionDto;
+import com.thienan.lovebox.shared.dto.NewsFeedItemDto;
+import com.thienan.lovebox.shared.dto.SingleQuestionDto;
+import com.thienan.lovebox.utils.CursorResponse;
+import com.thienan.lovebox.utils.FeedCursor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Merges the single and couple question feeds on the server.
+ * Items are ordered by answeredAt desc, then question type, then id desc.
+ */
+@Service
+public class NewsFeedServiceImpl implements NewsFeedService {
+
+    private static final Comparator<NewsFeedItemDto> NEWS_FEED_ORDER = Comparator
+            .comparing(NewsFeedItemDto::getAnsweredAt, Comparator.reverseOrder())
+            .thenComparing(NewsFeedItemDto::getQuestionType)
+            .thenComparing(NewsFeedItemDto::getId, Comparator.reverseOrder());
+
+    @Autowired
+    UserRepository userRepository;
+
+    @Autowired
+    TimelineService timelineService;
+
+    @Autowired
+    SingleQuestionService singleQuestionService;
+
+    @Autowired
+    CoupleQuestionService coupleQuestionService;
+
+    @Override
+    public CursorResponse<NewsFeedItemDto> getNewsFeed(Long userId, String cursor, int size) {
+        if (!userRepository.existsById(userId)) {
+            throw new NewsFeedServiceException("User with ID " + userId + " not found");
+        }
+
+        FeedCursor feedCursor = cursor == null ? null : FeedCursor.decode(cursor);
+        Set<Long> pulledUserIds = timelineService.getPulledAuthorIds(userId);
+
+        // One extra row tells whether there is a next page without counting
+        int limit = size + 1;
+
+        List<NewsFeedItemDto> singleQuestionItems = new ArrayList<>();
+        for (SingleQuestionDto singleQuestionDto : singleQuestionService.getQuestionsInNewsFeed(
+                userId, pulledUserIds, getStreamCursor(feedCursor, QuestionType.SINGLE), limit)) {
+            singleQuestionItems.add(new NewsFeedItemDto(singleQuestionDto));
+        }
+
+        List<NewsFeedItemDto> coupleQuestionItems = new ArrayList<>();
+        for (CoupleQuestionDto coupleQuestionDto : coupleQuestionService.getQuestionsInNewsFeed(
+                userId, pulledUserIds, getStreamCursor(feedCursor, QuestionType.COUPLE), limit)) {
+            coupleQuestionItems.add(new NewsFeedItemDto(coupleQuestionDto));
+        }
+
+        List<NewsFeedItemDto> newsFeedItems = merge(singleQuestionItems, coupleQuestionItems, limit);
+
+        String nextCursor = null;
+        if (newsFeedItems.size() > size) {
+            newsFeedItems = newsFeedItems.subList(0, size);
+            NewsFeedItemDto lastNewsFeedItem = newsFeedItems.get(size - 1);
+            nextCursor = new FeedCursor(lastNewsFeedItem.getAnsweredAt(), lastNewsFeedItem.getId(),
+                    lastNewsFeedItem.getQuestionType()).encode();
+        }
+
+        loadLoveStats(newsFeedItems, userId);
+
+        return new CursorResponse<>(newsFeedItems, nextCursor);
+    }
+
+    private void loadLoveStats(List<NewsFeedItemDto> newsFeedItems, Long viewerId) {
+        List<SingleQuestionDto> singleQuestionDtos = new ArrayList<>();
+        List<CoupleQuestionDto> coupleQuestionDtos = new ArrayList<>();
+
+        for (NewsFeedItemDto newsFeedItem : newsFeedItems) {
+            if (newsFeedItem.getSingleQuestion() != null) {
+                singleQuestionDtos.add(newsFeedItem.getSingleQuestion());
+            } else {
+                coupleQuestionDtos.add(newsFeedItem.getCoupleQuestion());
+            }
+        }
+
+        singleQuestionService.loadLoveStats(singleQuestionDtos, viewerId);
+        coupleQuestionService.loadLoveStats(coupleQuestionDtos, viewerId);
+    }
+
+    // Both streams are already sorted, so one pass picks the head of either stream
+    private List<NewsFeedItemDto> merge(List<NewsFeedItemDto> first, List<NewsFeedItemDto> second, int limit) {
+        List<NewsFeedItemDto> merged = new ArrayList<>(limit);
+        int i = 0;
+        int j = 0;
+
+        while (merged.size() < limit && (i < first.size() || j < second.size())) {
+            if (j >= second.size() || i < first.size() && NEWS_FEED_ORDER.compare(first.get(i), second.get(j)) <= 0) {
+                merged.add(first.get(i++));
+            } else {
+                merged.add(second.get(j++));
+            }
+        }
+
+        return merged;
+    }
+
+    // Translates the merged cursor into a (answeredAt, id) bound for a single stream.
+    // At the cursor's answeredAt, streams ordered after the cursor's type are read in full,
+    // streams ordered before it are skipped.
+    private FeedCursor getStreamCursor(FeedCursor feedCursor, QuestionType questionType) {
+        if (feedCursor == null) {
+            return null;
+        }
+
+        if (feedCursor.getQuestionType() == null) {
+            throw new BadRequestException("Invalid cursor");
+        }
+
+        int typeOrder = questionType.compareTo(feedCursor.getQuestionType());
+        if (typeOrder == 0) {
+            return feedCursor;
+        }
+
+        return new FeedCursor(feedCursor.getAnsweredAt(), typeOrder > 0 ? Long.MAX_VALUE : 0L);
+    }
+}
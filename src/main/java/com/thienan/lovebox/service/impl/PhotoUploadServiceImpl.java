@@ -0,0 +1,194 @@
+package com.thienan.lovebox.service.impl;
+
+import com.thienan.lovebox.entity.PhotoEntity;
+import com.thienan.lovebox.entity.PhotoUploadJobEntity;
+import com.thienan.lovebox.entity.PhotoUploadJobStatus;
+import com.thienan.lovebox.exception.ServiceUnavailableException;
+import com.thienan.lovebox.exception.service.PhotoUploadServiceException;
+import com.thienan.lovebox.repository.PhotoRepository;
+import com.thienan.lovebox.repository.PhotoUploadJobRepository;
+import com.thienan.lovebox.service.PhotoService;
+import com.thienan.lovebox.service.PhotoUploadService;
+import com.thienan.lovebox.service.UserService;
+import com.thienan.lovebox.shared.dto.PhotoDto;
+import com.thienan.lovebox.shared.dto.PhotoUploadJobDto;
+import com.thienan.lovebox.shared.mapper.PhotoMapper;
+import com.thienan.lovebox.shared.mapper.PhotoUploadJobMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.security.crypto.codec.Hex;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Optional;
+
+/**
+ * Accepts profile photos by spooling them to a temp file and hands the slow part, the upload
+ * to the photo store, to a bounded worker pool. Clients poll the job until it completes.
+ */
+@Service
+public class PhotoUploadServiceImpl implements PhotoUploadService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PhotoUploadServiceImpl.class);
+
+    private static final int MAX_ERROR_MESSAGE_LENGTH = 255;
+
+    @Value("${app.photoUploadTempDir}")
+    private String photoUploadTempDir;
+
+    @Autowired
+    PhotoUploadJobRepository photoUploadJobRepository;
+
+    @Autowired
+    PhotoRepository photoRepository;
+
+    @Autowired
+    PhotoService photoService;
+
+    @Autowired
+    UserService userService;
+
+    @Autowired
+    @Qualifier("photoUploadExecutor")
+    TaskExecutor photoUploadExecutor;
+
+    @Autowired
+    PhotoUploadJobMapper photoUploadJobMapper;
+
+    @Autowired
+    PhotoMapper photoMapper;
+
+    private Path tempDir;
+
+    @PostConstruct
+    public void init() throws IOException {
+        tempDir = Files.createDirectories(Paths.get(photoUploadTempDir));
+    }
+
+    @Override
+    public PhotoUploadJobDto submitUserPhoto(Long userId, MultipartFile multipartFile) {
+        MessageDigest digest = newContentDigest();
+        Path file = spoolToTempFile(multipartFile, digest);
+        String contentHash = new String(Hex.encode(digest.digest()));
+
+        // A photo we already store is attached right away, without another upstream transfer
+        Optional<PhotoEntity> existingPhoto = photoRepository.findFirstByContentHash(contentHash);
+        if (existingPhoto.isPresent()) {
+            deleteTempFile(file);
+            userService.changeUserPhoto(userId, photoMapper.toPhotoDto(existingPhoto.get()));
+
+            PhotoUploadJobEntity completedJob = new PhotoUploadJobEntity(userId, PhotoUploadJobStatus.COMPLETED);
+            completedJob.setPhoto(existingPhoto.get());
+            return photoUploadJobMapper.toPhotoUploadJobDto(photoUploadJobRepository.save(completedJob));
+        }
+
+        PhotoUploadJobEntity savedJob;
+        try {
+            savedJob = photoUploadJobRepository.save(new PhotoUploadJobEntity(userId, PhotoUploadJobStatus.PENDING));
+        } catch (RuntimeException ex) {
+            deleteTempFile(file);
+            throw ex;
+        }
+
+        Long jobId = savedJob.getId();
+        try {
+            photoUploadExecutor.execute(() -> processJob(jobId, userId, file, contentHash));
+        } catch (TaskRejectedException ex) {
+            deleteTempFile(file);
+            photoUploadJobRepository.deleteById(jobId);
+            throw new ServiceUnavailableException("Too many photo uploads in progress, please try again later", ex);
+        }
+
+        return photoUploadJobMapper.toPhotoUploadJobDto(savedJob);
+    }
+
+    @Override
+    public PhotoUploadJobDto getUserPhotoJob(Long userId, Long jobId) {
+        PhotoUploadJobEntity photoUploadJobEntity = photoUploadJobRepository.findByIdAndUserId(jobId, userId)
+                .orElseThrow(() -> new PhotoUploadServiceException("Photo upload job with ID " + jobId + " not found"));
+
+        return photoUploadJobMapper.toPhotoUploadJobDto(photoUploadJobEntity);
+    }
+
+    // Hashes the bytes in the same pass that copies them to the temp file
+    private Path spoolToTempFile(MultipartFile multipartFile, MessageDigest digest) {
+        Path file = null;
+        try (InputStream inputStream = new DigestInputStream(multipartFile.getInputStream(), digest)) {
+            file = Files.createTempFile(tempDir, "photo-", ".upload");
+            Files.copy(inputStream, file, StandardCopyOption.REPLACE_EXISTING);
+            return file;
+        } catch (IOException ex) {
+            deleteTempFile(file);
+            throw new PhotoUploadServiceException("Could not store uploaded photo", ex);
+        }
+    }
+
+    private void processJob(Long jobId, Long userId, Path file, String contentHash) {
+        try {
+            updateJob(jobId, PhotoUploadJobStatus.PROCESSING, null, null);
+
+            // Checked again in case an identical upload finished while this one was queued
+            PhotoDto photoDto = photoRepository.findFirstByContentHash(contentHash)
+                    .map(photoMapper::toPhotoDto)
+                    .orElseGet(() -> photoService.uploadFile(file.toFile(), contentHash));
+            userService.changeUserPhoto(userId, photoDto);
+
+            updateJob(jobId, PhotoUploadJobStatus.COMPLETED, photoDto.getId(), null);
+        } catch (Exception ex) {
+            logger.error("Photo upload job {} failed", jobId, ex);
+            updateJob(jobId, PhotoUploadJobStatus.FAILED, null, ex.getMessage());
+        } finally {
+            deleteTempFile(file);
+        }
+    }
+
+    private void updateJob(Long jobId, PhotoUploadJobStatus status, Long photoId, String errorMessage) {
+        photoUploadJobRepository.findById(jobId).ifPresent(photoUploadJobEntity -> {
+            photoUploadJobEntity.setStatus(status);
+            if (photoId != null) {
+                photoUploadJobEntity.setPhoto(photoRepository.getOne(photoId));
+            }
+            if (errorMessage != null) {
+                photoUploadJobEntity.setErrorMessage(errorMessage.length() > MAX_ERROR_MESSAGE_LENGTH
+                        ? errorMessage.substring(0, MAX_ERROR_MESSAGE_LENGTH)
+                        : errorMessage);
+            }
+            photoUploadJobRepository.save(photoUploadJobEntity);
+        });
+    }
+
+    private MessageDigest newContentDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 is not available", ex);
+        }
+    }
+
+    private void deleteTempFile(Path file) {
+        if (file == null) {
+            return;
+        }
+
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException ex) {
+            logger.warn("Could not delete temp file {}", file, ex);
+        }
+    }
+}
@@ -0,0 +1,324 @@
+package com.thienan.lovebox.service.impl;
+
+import com.thienan.lovebox.entity.PhotoVariant;
+import com.thienan.lovebox.exception.service.PhotoUploadServiceException;
+import com.thienan.lovebox.service.PhotoVariantService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.w3c.dom.Node;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.metadata.IIOMetadata;
+import javax.imageio.metadata.IIOMetadataNode;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Decodes an uploaded photo once and encodes every {@link PhotoVariant} from it in parallel.
+ * Re-encoding from pixels drops EXIF and any other metadata the upload carried, so the EXIF
+ * orientation of a JPEG is applied to the pixels while decoding.
+ */
+@Service
+public class PhotoVariantServiceImpl implements PhotoVariantService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PhotoVariantServiceImpl.class);
+
+    private static final float JPEG_QUALITY = 0.85f;
+
+    private static final String JPEG_METADATA_FORMAT = "javax_imageio_jpeg_image_1.0";
+
+    private static final String APP1_MARKER_TAG = "225";
+
+    private static final int EXIF_ORIENTATION_TAG = 0x0112;
+
+    @Value("${app.photoVariantParallelism}")
+    private int photoVariantParallelism;
+
+    @Value("${app.photoMaxPixels}")
+    private long photoMaxPixels;
+
+    @Value("${app.photoUploadTempDir}")
+    private String photoUploadTempDir;
+
+    private ForkJoinPool forkJoinPool;
+
+    // Variants are spooled next to the uploads they come from
+    private Path tempDir;
+
+    @PostConstruct
+    public void init() throws IOException {
+        forkJoinPool = new ForkJoinPool(photoVariantParallelism);
+        tempDir = Files.createDirectories(Paths.get(photoUploadTempDir));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        forkJoinPool.shutdown();
+    }
+
+    @Override
+    public Map<PhotoVariant, File> createVariants(File file) {
+        return createVariants(file, EnumSet.allOf(PhotoVariant.class));
+    }
+
+    @Override
+    public Map<PhotoVariant, File> createVariants(File file, Set<PhotoVariant> variantsToCreate) {
+        BufferedImage image = decode(file);
+        String format = image.getColorModel().hasAlpha() ? "png" : "jpg";
+
+        Map<PhotoVariant, ForkJoinTask<File>> tasks = new EnumMap<>(PhotoVariant.class);
+        for (PhotoVariant variant : variantsToCreate) {
+            tasks.put(variant, forkJoinPool.submit(() -> encode(resize(image, variant.getSize()), format)));
+        }
+
+        Map<PhotoVariant, File> variants = new EnumMap<>(PhotoVariant.class);
+        RuntimeException failure = null;
+        for (Map.Entry<PhotoVariant, ForkJoinTask<File>> entry : tasks.entrySet()) {
+            try {
+                variants.put(entry.getKey(), entry.getValue().join());
+            } catch (RuntimeException ex) {
+                failure = ex;
+            }
+        }
+
+        if (failure != null) {
+            deleteVariants(variants);
+            throw new PhotoUploadServiceException("Could not create photo variants", failure);
+        }
+        return variants;
+    }
+
+    @Override
+    public void deleteVariants(Map<PhotoVariant, File> variants) {
+        for (File file : variants.values()) {
+            if (!file.delete() && file.exists()) {
+                logger.warn("Could not delete temp file {}", file);
+            }
+        }
+    }
+
+    // Dimensions are read from the header first, so oversized images are refused before decoding
+    private BufferedImage decode(File file) {
+        try (ImageInputStream inputStream = ImageIO.createImageInputStream(file)) {
+            Iterator<ImageReader> readers = inputStream == null ? null : ImageIO.getImageReaders(inputStream);
+            if (readers == null || !readers.hasNext()) {
+                throw new PhotoUploadServiceException("Uploaded file is not a supported image");
+            }
+
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(inputStream, true, false);
+                if ((long) reader.getWidth(0) * reader.getHeight(0) > photoMaxPixels) {
+                    throw new PhotoUploadServiceException("Uploaded image is too large");
+                }
+                int orientation = readOrientation(reader);
+                return orient(reader.read(0), orientation);
+            } finally {
+                reader.dispose();
+            }
+        } catch (IOException ex) {
+            throw new PhotoUploadServiceException("Could not read uploaded image", ex);
+        }
+    }
+
+    // Only JPEG keeps EXIF in an APP1 marker the reader exposes; other formats, and metadata the
+    // reader cannot parse, are treated as upright
+    private int readOrientation(ImageReader reader) {
+        IIOMetadata metadata;
+        try {
+            metadata = reader.getImageMetadata(0);
+        } catch (IOException ex) {
+            logger.debug("Ignoring unreadable image metadata", ex);
+            return 1;
+        }
+
+        if (metadata == null || !JPEG_METADATA_FORMAT.equals(metadata.getNativeMetadataFormatName())) {
+            return 1;
+        }
+
+        Node markerSequence = metadata.getAsTree(JPEG_METADATA_FORMAT).getLastChild();
+        for (Node node = markerSequence == null ? null : markerSequence.getFirstChild();
+             node != null; node = node.getNextSibling()) {
+            if (!"unknown".equals(node.getNodeName()) || !(node instanceof IIOMetadataNode)) {
+                continue;
+            }
+            Node markerTag = node.getAttributes().getNamedItem("MarkerTag");
+            Object data = ((IIOMetadataNode) node).getUserObject();
+            if (markerTag != null && APP1_MARKER_TAG.equals(markerTag.getNodeValue()) && data instanceof byte[]) {
+                int orientation = readExifOrientation((byte[]) data);
+                if (orientation != 0) {
+                    return orientation;
+                }
+            }
+        }
+        return 1;
+    }
+
+    // APP1 holds "Exif\0\0" followed by a TIFF header; Orientation is a SHORT entry in the first IFD
+    private int readExifOrientation(byte[] data) {
+        if (data.length < 14 || data[0] != 'E' || data[1] != 'x' || data[2] != 'i' || data[3] != 'f'
+                || data[4] != 0 || data[5] != 0) {
+            return 0;
+        }
+
+        ByteBuffer tiff = ByteBuffer.wrap(data, 6, data.length - 6).slice();
+        if (data[6] == 'I' && data[7] == 'I') {
+            tiff.order(ByteOrder.LITTLE_ENDIAN);
+        } else if (data[6] != 'M' || data[7] != 'M') {
+            return 0;
+        }
+
+        try {
+            int ifdOffset = tiff.getInt(4);
+            int entryCount = tiff.getShort(ifdOffset) & 0xFFFF;
+            for (int i = 0; i < entryCount; i++) {
+                int entryOffset = ifdOffset + 2 + i * 12;
+                if ((tiff.getShort(entryOffset) & 0xFFFF) == EXIF_ORIENTATION_TAG) {
+                    int orientation = tiff.getShort(entryOffset + 8) & 0xFFFF;
+                    return orientation >= 1 && orientation <= 8 ? orientation : 0;
+                }
+            }
+        } catch (IndexOutOfBoundsException ex) {
+            logger.debug("Ignoring malformed EXIF block", ex);
+        }
+        return 0;
+    }
+
+    // Maps each EXIF orientation to the transform that brings the stored pixels upright
+    private BufferedImage orient(BufferedImage image, int orientation) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+
+        AffineTransform transform;
+        switch (orientation) {
+            case 2:
+                transform = new AffineTransform(-1, 0, 0, 1, width, 0);
+                break;
+            case 3:
+                transform = new AffineTransform(-1, 0, 0, -1, width, height);
+                break;
+            case 4:
+                transform = new AffineTransform(1, 0, 0, -1, 0, height);
+                break;
+            case 5:
+                transform = new AffineTransform(0, 1, 1, 0, 0, 0);
+                break;
+            case 6:
+                transform = new AffineTransform(0, 1, -1, 0, height, 0);
+                break;
+            case 7:
+                transform = new AffineTransform(0, -1, -1, 0, height, width);
+                break;
+            case 8:
+                transform = new AffineTransform(0, -1, 1, 0, 0, width);
+                break;
+            default:
+                return image;
+        }
+
+        boolean swapsSides = orientation >= 5;
+        BufferedImage target = new BufferedImage(swapsSides ? height : width, swapsSides ? width : height,
+                image.getColorModel().hasAlpha() ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = target.createGraphics();
+        try {
+            graphics.drawImage(image, transform, null);
+        } finally {
+            graphics.dispose();
+        }
+        return target;
+    }
+
+    // Halves in steps before the last bilinear pass, which keeps small avatars sharp
+    private BufferedImage resize(BufferedImage image, int maxSize) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int longerSide = Math.max(width, height);
+        if (maxSize <= 0 || longerSide <= maxSize) {
+            return image;
+        }
+
+        int targetWidth = Math.max(1, (int) Math.round((double) width * maxSize / longerSide));
+        int targetHeight = Math.max(1, (int) Math.round((double) height * maxSize / longerSide));
+
+        BufferedImage result = image;
+        while (width > targetWidth || height > targetHeight) {
+            width = Math.max(targetWidth, width / 2);
+            height = Math.max(targetHeight, height / 2);
+            result = draw(result, width, height, image.getColorModel().hasAlpha());
+        }
+        return result;
+    }
+
+    private BufferedImage draw(BufferedImage source, int width, int height, boolean alpha) {
+        BufferedImage target = new BufferedImage(width, height,
+                alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = target.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return target;
+    }
+
+    private File encode(BufferedImage image, String format) {
+        File file = null;
+        try {
+            file = Files.createTempFile(tempDir, "photo-variant-", "." + format).toFile();
+            if ("png".equals(format)) {
+                ImageIO.write(image, format, file);
+                return file;
+            }
+
+            // The JPEG writer rejects images with alpha or unusual layouts, so flatten to RGB first
+            BufferedImage rgbImage = image.getType() == BufferedImage.TYPE_INT_RGB
+                    ? image
+                    : draw(image, image.getWidth(), image.getHeight(), false);
+
+            ImageWriter writer = ImageIO.getImageWritersByFormatName("jpg").next();
+            try (ImageOutputStream outputStream = ImageIO.createImageOutputStream(file)) {
+                ImageWriteParam param = writer.getDefaultWriteParam();
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                param.setCompressionQuality(JPEG_QUALITY);
+                writer.setOutput(outputStream);
+                writer.write(null, new IIOImage(rgbImage, null, null), param);
+            } finally {
+                writer.dispose();
+            }
+            return file;
+        } catch (IOException ex) {
+            if (file != null && !file.delete()) {
+                logger.warn("Could not delete temp file {}", file);
+            }
+            throw new PhotoUploadServiceException("Could not encode photo variant", ex);
+        }
+    }
+}
@@ -0,0 +1,437 @@
+package com.thienan.lovebox.service.impl;
+
+import com.thienan.lovebox.entity.QuestionType;
+import com.thienan.lovebox.service.QuestionLoveBuffer;
+import com.thienan.lovebox.utils.DeadlockRetryTemplate;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Write-behind buffer for love toggles. Toggles of the same (question, user) pair are
+ * coalesced in memory, and only net changes are written, in JDBC batches, every flush interval.
+ * An orderly shutdown flushes what is left and writes later toggles directly; a crash loses at
+ * most one interval of toggles.
+ * The buffer never holds more than the maximum size of pairs: a toggle that would exceed it
+ * flushes synchronously first, and fails if that write fails.
+ */
+@Service
+public class QuestionLoveBufferImpl implements QuestionLoveBuffer {
+
+    private static final Logger logger = LoggerFactory.getLogger(QuestionLoveBufferImpl.class);
+
+    private static final Comparator<LoveKey> LOCK_ORDER = Comparator
+            .comparing(LoveKey::getQuestionId)
+            .thenComparing(LoveKey::getUserId);
+
+    @Value("${app.loveWriteBehindEnabled}")
+    private boolean enabled;
+
+    @Value("${app.loveBufferFlushIntervalInMs}")
+    private long flushIntervalInMs;
+
+    @Value("${app.loveBufferMaximumSize}")
+    private int maximumSize;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    DeadlockRetryTemplate deadlockRetryTemplate;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    // Readers hold the read lock while they look at both maps, flush swaps them under the write lock
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private volatile Map<LoveKey, PendingLove> pending = new ConcurrentHashMap<>();
+
+    // Pairs reserved in pending; reserved before they are added, so the cap holds under concurrency
+    private final AtomicInteger pendingSize = new AtomicInteger();
+
+    private final AtomicBoolean earlyFlushScheduled = new AtomicBoolean();
+
+    // The batch being written, so toggles still see it until it has committed
+    private volatile Map<LoveKey, PendingLove> inFlight = Collections.emptyMap();
+
+    // Bumped when a batch is done, so a committed state read without the lock can be checked for staleness
+    private final AtomicLong finishedFlushes = new AtomicLong();
+
+    // Set under the write lock by shutdown; from then on toggles bypass the buffer
+    private volatile boolean closed;
+
+    private ScheduledExecutorService scheduler;
+
+    private Timer flushTimer;
+
+    @PostConstruct
+    public void init() {
+        Gauge.builder("lovebox.love.buffer.depth", this, buffer -> buffer.pendingSize.get())
+                .description("Love toggles waiting to be written")
+                .register(meterRegistry);
+        flushTimer = Timer.builder("lovebox.love.buffer.flush")
+                .description("Time taken to write one batch of love toggles")
+                .register(meterRegistry);
+
+        if (enabled) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("love-buffer-"));
+            scheduler.scheduleWithFixedDelay(this::flushQuietly, flushIntervalInMs, flushIntervalInMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        if (scheduler != null) {
+            scheduler.shutdown();
+            scheduler.awaitTermination(flushIntervalInMs * 10, TimeUnit.MILLISECONDS);
+        }
+
+        // Toggles buffered before this point go out with the final flush
+        lock.writeLock().lock();
+        try {
+            closed = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        flush();
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public boolean toggleLove(QuestionType questionType, Long questionId, Long userId) {
+        LoveKey key = new LoveKey(questionType, questionId, userId);
+
+        PendingLove toggledLove;
+        while ((toggledLove = tryToggleLove(key)) == null) {
+            if (closed) {
+                return toggleLoveDirectly(key);
+            }
+            flush();
+        }
+
+        scheduleEarlyFlush();
+        return toggledLove.isLoved();
+    }
+
+    // Null when the pair is not buffered yet and the buffer is full or closed
+    private PendingLove tryToggleLove(LoveKey key) {
+        Boolean committedLove = null;
+        long committedLoveReadAfter = -1;
+
+        while (true) {
+            lock.readLock().lock();
+            try {
+                if (closed) {
+                    return null;
+                }
+
+                // Compute is atomic per key, so concurrent toggles of one pair still alternate
+                Map<LoveKey, PendingLove> currentPending = pending;
+                PendingLove toggledLove = currentPending.computeIfPresent(key, (k, pendingLove) -> pendingLove.toggle());
+                if (toggledLove != null) {
+                    return toggledLove;
+                }
+
+                // An in-flight batch is either still visible here or committed
+                PendingLove inFlightLove = inFlight.get(key);
+                if (inFlightLove != null) {
+                    committedLove = inFlightLove.isLoved();
+                } else if (committedLoveReadAfter != finishedFlushes.get()) {
+                    committedLoveReadAfter = finishedFlushes.get();
+                    committedLove = null;
+                }
+
+                if (committedLove != null) {
+                    return addPendingLove(currentPending, key, committedLove);
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+
+            // Read without the lock, so flushes are not held up by the query. The next pass
+            // reads again if a batch, which may have written the pair, finished meanwhile.
+            committedLove = readCommittedLove(key);
+        }
+    }
+
+    // Called under the read lock; null when the buffer is full
+    private PendingLove addPendingLove(Map<LoveKey, PendingLove> currentPending, LoveKey key, boolean committedLove) {
+        if (pendingSize.incrementAndGet() > maximumSize) {
+            pendingSize.decrementAndGet();
+            return null;
+        }
+
+        boolean[] added = new boolean[1];
+        PendingLove toggledLove = currentPending.compute(key, (k, pendingLove) -> {
+            if (pendingLove != null) {
+                return pendingLove.toggle();
+            }
+            added[0] = true;
+            return new PendingLove(committedLove, !committedLove);
+        });
+
+        // Another toggle of the same pair added it first
+        if (!added[0]) {
+            pendingSize.decrementAndGet();
+        }
+        return toggledLove;
+    }
+
+    // Half full starts a flush ahead of the interval, so the cap is rarely reached
+    private void scheduleEarlyFlush() {
+        if (pendingSize.get() < maximumSize / 2 || scheduler == null || scheduler.isShutdown()
+                || !earlyFlushScheduled.compareAndSet(false, true)) {
+            return;
+        }
+
+        try {
+            scheduler.execute(() -> {
+                earlyFlushScheduled.set(false);
+                flushQuietly();
+            });
+        } catch (RejectedExecutionException ex) {
+            // Shut down meanwhile; the final flush writes what is pending
+            earlyFlushScheduled.set(false);
+        }
+    }
+
+    // Waits for the final flush, so this write lands after any buffered toggle of the same pair
+    private boolean toggleLoveDirectly(LoveKey key) {
+        flush();
+
+        String tableName = getTableName(key.getQuestionType());
+        String questionColumnName = getQuestionColumnName(key.getQuestionType());
+        return deadlockRetryTemplate.execute(() -> {
+            // Deleting first decides love or unlove atomically on the join row
+            if (jdbcTemplate.update("delete from " + tableName + " where " + questionColumnName + " = ? and user_id = ?",
+                    key.getQuestionId(), key.getUserId()) > 0) {
+                return false;
+            }
+
+            jdbcTemplate.update("insert ignore into " + tableName + " (" + questionColumnName + ", user_id) values (?, ?)",
+                    key.getQuestionId(), key.getUserId());
+            return true;
+        });
+    }
+
+    @Override
+    public Boolean getPendingLove(QuestionType questionType, Long questionId, Long userId) {
+        LoveKey key = new LoveKey(questionType, questionId, userId);
+
+        lock.readLock().lock();
+        try {
+            PendingLove pendingLove = pending.get(key);
+            if (pendingLove == null) {
+                pendingLove = inFlight.get(key);
+            }
+            return pendingLove == null || pendingLove.isUnchanged() ? null : pendingLove.isLoved();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public synchronized void flush() {
+        Map<LoveKey, PendingLove> batch;
+        lock.writeLock().lock();
+        try {
+            batch = pending;
+            if (batch.isEmpty()) {
+                return;
+            }
+            inFlight = batch;
+            pending = new ConcurrentHashMap<>();
+            pendingSize.set(0);
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        boolean written = false;
+        try {
+            flushTimer.record(() -> write(batch));
+            written = true;
+        } finally {
+            lock.writeLock().lock();
+            try {
+                if (!written) {
+                    requeue(batch);
+                    pendingSize.set(pending.size());
+                }
+                inFlight = Collections.emptyMap();
+                finishedFlushes.incrementAndGet();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException ex) {
+            logger.error("Could not flush love buffer, will retry", ex);
+        }
+    }
+
+    private void write(Map<LoveKey, PendingLove> batch) {
+        Map<QuestionType, List<Object[]>> inserts = new EnumMap<>(QuestionType.class);
+        Map<QuestionType, List<Object[]>> deletes = new EnumMap<>(QuestionType.class);
+
+        // A fixed order keeps concurrent flushes from different instances from deadlocking
+        List<LoveKey> keys = new ArrayList<>(batch.keySet());
+        keys.sort(LOCK_ORDER);
+
+        for (LoveKey key : keys) {
+            PendingLove pendingLove = batch.get(key);
+            if (pendingLove.isUnchanged()) {
+                continue;
+            }
+
+            Map<QuestionType, List<Object[]>> target = pendingLove.isLoved() ? inserts : deletes;
+            target.computeIfAbsent(key.getQuestionType(), questionType -> new ArrayList<>())
+                    .add(new Object[]{key.getQuestionId(), key.getUserId()});
+        }
+
+        if (inserts.isEmpty() && deletes.isEmpty()) {
+            return;
+        }
+
+        deadlockRetryTemplate.execute(() -> {
+            for (Map.Entry<QuestionType, List<Object[]>> entry : inserts.entrySet()) {
+                jdbcTemplate.batchUpdate("insert ignore into " + getTableName(entry.getKey()) + " (" +
+                        getQuestionColumnName(entry.getKey()) + ", user_id) values (?, ?)", entry.getValue());
+            }
+            for (Map.Entry<QuestionType, List<Object[]>> entry : deletes.entrySet()) {
+                jdbcTemplate.batchUpdate("delete from " + getTableName(entry.getKey()) + " where " +
+                        getQuestionColumnName(entry.getKey()) + " = ? and user_id = ?", entry.getValue());
+            }
+            return null;
+        });
+    }
+
+    // Newer toggles keep their direction but inherit the state the database still has
+    private void requeue(Map<LoveKey, PendingLove> batch) {
+        for (Map.Entry<LoveKey, PendingLove> entry : batch.entrySet()) {
+            pending.merge(entry.getKey(), entry.getValue(),
+                    (newer, failed) -> new PendingLove(failed.isOriginallyLoved(), newer.isLoved()));
+        }
+    }
+
+    private boolean readCommittedLove(LoveKey key) {
+        Integer count = jdbcTemplate.queryForObject("select count(*) from " + getTableName(key.getQuestionType()) +
+                        " where " + getQuestionColumnName(key.getQuestionType()) + " = ? and user_id = ?",
+                Integer.class, key.getQuestionId(), key.getUserId());
+        return count != null && count > 0;
+    }
+
+    private String getTableName(QuestionType questionType) {
+        return questionType == QuestionType.SINGLE ? "single_question_loves" : "couple_question_loves";
+    }
+
+    private String getQuestionColumnName(QuestionType questionType) {
+        return questionType == QuestionType.SINGLE ? "single_question_id" : "couple_question_id";
+    }
+
+    private static final class LoveKey {
+
+        private final QuestionType questionType;
+        private final Long questionId;
+        private final Long userId;
+
+        LoveKey(QuestionType questionType, Long questionId, Long userId) {
+            this.questionType = questionType;
+            this.questionId = questionId;
+            this.userId = userId;
+        }
+
+        QuestionType getQuestionType() {
+            return questionType;
+        }
+
+        Long getQuestionId() {
+            return questionId;
+        }
+
+        Long getUserId() {
+            return userId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof LoveKey)) {
+                return false;
+            }
+            LoveKey loveKey = (LoveKey) o;
+            return questionType == loveKey.questionType
+                    && questionId.equals(loveKey.questionId)
+                    && userId.equals(loveKey.userId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(questionType, questionId, userId);
+        }
+    }
+
+    private static final class PendingLove {
+
+        private final boolean originallyLoved;
+        private final boolean loved;
+
+        PendingLove(boolean originallyLoved, boolean loved) {
+            this.originallyLoved = originallyLoved;
+            this.loved = loved;
+        }
+
+        PendingLove toggle() {
+            return new PendingLove(originallyLoved, !loved);
+        }
+
+        boolean isOriginallyLoved() {
+            return originallyLoved;
+        }
+
+        boolean isLoved() {
+            return loved;
+        }
+
+        boolean isUnchanged() {
+            return originallyLoved == loved;
+        }
+    }
+}
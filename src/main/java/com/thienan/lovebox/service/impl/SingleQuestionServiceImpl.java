@@ -1,56 +1,127 @@
 package com.thienan.lovebox.service.impl;
 
+import com.thienan.lovebox.entity.QuestionType;
 import com.thienan.lovebox.entity.SingleQuestionEntity;
 import com.thienan.lovebox.entity.UserEntity;
 import com.thienan.lovebox.exception.service.SingleQuestionServiceException;
 import com.thienan.lovebox.repository.UserRepository;
-import com.thienan.lovebox.shared.dto.UserDto;
+import com.thienan.lovebox.utils.CursorResponse;
+import com.thienan.lovebox.utils.DeadlockRetryTemplate;
+import com.thienan.lovebox.utils.FeedCursor;
 import com.thienan.lovebox.utils.PagedResponse;
+import com.thienan.lovebox.repository.QuestionLoveStats;
 import com.thienan.lovebox.repository.SingleQuestionRepository;
+import com.thienan.lovebox.service.QuestionLoveBuffer;
 import com.thienan.lovebox.service.SingleQuestionService;
+import com.thienan.lovebox.service.TimelineService;
 import com.thienan.lovebox.shared.dto.SingleQuestionDto;
+import com.thienan.lovebox.shared.mapper.SingleQuestionMapper;
 import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Instant;
-import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
 public class SingleQuestionServiceImpl implements SingleQuestionService {
 
+    private static final Comparator<SingleQuestionEntity> NEWS_FEED_ORDER = Comparator
+            .comparing(SingleQuestionEntity::getAnsweredAt)
+            .thenComparing(SingleQuestionEntity::getId)
+            .reversed();
+
     @Autowired
     UserRepository userRepository;
 
     @Autowired
     SingleQuestionRepository singleQuestionRepository;
 
+    @Autowired
+    SingleQuestionMapper singleQuestionMapper;
+
+    @Autowired
+    TimelineService timelineService;
+
+    @Autowired
+    QuestionLoveBuffer questionLoveBuffer;
+
+    @Autowired
+    DeadlockRetryTemplate deadlockRetryTemplate;
+
     @Autowired
     ModelMapper modelMapper;
 
     @Override
     public PagedResponse<SingleQuestionDto> getQuestionsInNewsFeed(Long userId, Pageable pageable) {
-        UserEntity userEntity = userRepository.findById(userId)
-                .orElseThrow(() -> new SingleQuestionServiceException("User with ID " + userId + " not found"));
+        if (!userRepository.existsById(userId)) {
+            throw new SingleQuestionServiceException("User with ID " + userId + " not found");
+        }
 
-        Set<Long> userIds = userEntity.getFollowing().stream().map(UserEntity::getId).collect(Collectors.toSet());
+        Set<Long> userIds = userRepository.findAllFollowingIdsById(userId);
         Page<SingleQuestionEntity> singleQuestionEntityPage = singleQuestionRepository.findAllAnsweredQuestionsByUserIdsIn(userIds, pageable);
 
         return mapToSingleQuestionDtoPage(singleQuestionEntityPage);
     }
 
     @Override
-    public PagedResponse<SingleQuestionDto> getQuestionsByUserId(Long userId, boolean answered, Pageable pageable) {
+    public CursorResponse<SingleQuestionDto> getQuestionsInNewsFeed(Long userId, String cursor, int size) {
+        if (!userRepository.existsById(userId)) {
+            throw new SingleQuestionServiceException("User with ID " + userId + " not found");
+        }
+
+        FeedCursor feedCursor = cursor == null ? null : FeedCursor.decode(cursor);
+        Set<Long> pulledUserIds = timelineService.getPulledAuthorIds(userId);
+
+        // One extra row tells whether there is a next page without counting
+        List<SingleQuestionDto> singleQuestionDtos = getQuestionsInNewsFeed(userId, pulledUserIds, feedCursor, size + 1);
+        return mapToSingleQuestionDtoCursorResponse(singleQuestionDtos, size);
+    }
+
+    @Override
+    public List<SingleQuestionDto> getQuestionsInNewsFeed(Long userId, Set<Long> pulledUserIds, FeedCursor feedCursor, int limit) {
+        Map<Long, SingleQuestionEntity> singleQuestionEntities = new HashMap<>();
+
+        List<Long> questionIds = timelineService.getQuestionIds(userId, QuestionType.SINGLE, feedCursor, limit);
+        for (SingleQuestionEntity singleQuestionEntity : singleQuestionRepository.findAllById(questionIds)) {
+            singleQuestionEntities.put(singleQuestionEntity.getId(), singleQuestionEntity);
+        }
+
+        // Answers of authors above the fan-out threshold are never pushed, so pull them here
+        if (!pulledUserIds.isEmpty()) {
+            for (SingleQuestionEntity singleQuestionEntity : findAnsweredQuestionsByUserIdsIn(pulledUserIds, feedCursor, limit)) {
+                singleQuestionEntities.put(singleQuestionEntity.getId(), singleQuestionEntity);
+            }
+        }
+
+        List<SingleQuestionEntity> sortedSingleQuestionEntities = singleQuestionEntities.values().stream()
+                .filter(SingleQuestionEntity::isAnswered)
+                .sorted(NEWS_FEED_ORDER)
+                .limit(limit)
+                .collect(Collectors.toList());
+
+        return singleQuestionMapper.toSingleQuestionDtoList(sortedSingleQuestionEntities);
+    }
+
+    @Override
+    public PagedResponse<SingleQuestionDto> getQuestionsByUserId(Long userId, boolean answered, Pageable pageable, boolean count) {
         UserEntity userEntity = userRepository.findById(userId)
                 .orElseThrow(() -> new SingleQuestionServiceException("User with ID " + userId + " not found"));
 
-        Page<SingleQuestionEntity> questionPage = singleQuestionRepository.findAllQuestionsByUserId(userId, answered, pageable);
+        Slice<SingleQuestionEntity> questionPage = count
+                ? singleQuestionRepository.findAllQuestionsByUserId(userId, answered, pageable)
+                : singleQuestionRepository.findAllQuestionsSliceByUserId(userId, answered, pageable);
         return mapToSingleQuestionDtoPage(questionPage);
     }
 
@@ -70,6 +141,7 @@ public class SingleQuestionServiceImpl implements SingleQuestionService {
     }
 
     @Override
+    @Transactional
     public SingleQuestionDto answerQuestion(Long id, String answerText) {
         SingleQuestionEntity singleQuestionEntity = singleQuestionRepository.findById(id)
                 .orElseThrow(() -> new SingleQuestionServiceException("Single question with ID " + id + " not found"));
@@ -78,7 +150,14 @@ public class SingleQuestionServiceImpl implements SingleQuestionService {
             throw new SingleQuestionServiceException("Single question has been answered");
         }
 
-        singleQuestionRepository.answerQuestion(id, Instant.now(), answerText);
+        Long answererId = singleQuestionEntity.getAnswerer().getId();
+        Instant answeredAt = Instant.now();
+
+        // A concurrent answer that got there first has already been pushed
+        if (singleQuestionRepository.answerQuestion(id, answeredAt, answerText) == 0) {
+            throw new SingleQuestionServiceException("Single question has been answered");
+        }
+        timelineService.pushQuestion(QuestionType.SINGLE, id, answeredAt, Collections.singleton(answererId));
 
         SingleQuestionEntity answeredSingleQuestionEntity = singleQuestionRepository.findById(id)
                 .orElseThrow(() -> new SingleQuestionServiceException("Single question with ID " + id + " not found"));
@@ -87,6 +166,7 @@ public class SingleQuestionServiceImpl implements SingleQuestionService {
     }
 
     @Override
+    @Transactional
     public SingleQuestionDto unanswerQuestion(Long id) {
         SingleQuestionEntity singleQuestionEntity = singleQuestionRepository.findById(id)
                 .orElseThrow(() -> new SingleQuestionServiceException("Single question with ID " + id + " not found"));
@@ -96,6 +176,7 @@ public class SingleQuestionServiceImpl implements SingleQuestionService {
         }
 
         singleQuestionRepository.unanswerQuestion(id, Instant.now());
+        timelineService.removeQuestion(QuestionType.SINGLE, id);
 
         SingleQuestionEntity unansweredSingleQuestionEntity = singleQuestionRepository.findById(id)
                 .orElseThrow(() -> new SingleQuestionServiceException("Single question with ID " + id + " not found"));
@@ -104,22 +185,51 @@ public class SingleQuestionServiceImpl implements SingleQuestionService {
     }
 
     @Override
-    public SingleQuestionDto loveOrUnloveQuestion(Long id, Long userId) {
-        SingleQuestionEntity singleQuestionEntity = singleQuestionRepository.findById(id)
-                .orElseThrow(() -> new SingleQuestionServiceException("Single question with ID " + id + " not found"));
+    public void loadLoveStats(List<SingleQuestionDto> singleQuestionDtos, Long viewerId) {
+        if (singleQuestionDtos.isEmpty()) {
+            return;
+        }
 
-        UserEntity userEntity = userRepository.findById(userId).orElseThrow(() ->
-                new SingleQuestionServiceException("User with ID " + id + " not found")
-        );
+        Map<Long, SingleQuestionDto> singleQuestionDtosById = new HashMap<>();
+        for (SingleQuestionDto singleQuestionDto : singleQuestionDtos) {
+            singleQuestionDtosById.put(singleQuestionDto.getId(), singleQuestionDto);
+        }
 
-        if (!singleQuestionEntity.getLoves().contains(userEntity)) {
-            singleQuestionEntity.getLoves().add(userEntity);
-        } else {
-            singleQuestionEntity.getLoves().remove(userEntity);
+        // Questions without loves have no row here and keep the zero defaults
+        for (QuestionLoveStats questionLoveStats : singleQuestionRepository
+                .findLoveStatsByIdIn(singleQuestionDtosById.keySet(), viewerId)) {
+            SingleQuestionDto singleQuestionDto = singleQuestionDtosById.get(questionLoveStats.getQuestionId());
+            singleQuestionDto.setLoveCount(questionLoveStats.getLoveCount());
+            singleQuestionDto.setLovedByViewer(questionLoveStats.getViewerLoveCount() > 0);
+        }
+
+        // The viewer's own unflushed toggles go on top, so a tap shows up right away
+        if (viewerId != null && questionLoveBuffer.isEnabled()) {
+            for (SingleQuestionDto singleQuestionDto : singleQuestionDtos) {
+                Boolean pendingLove = questionLoveBuffer.getPendingLove(QuestionType.SINGLE, singleQuestionDto.getId(), viewerId);
+                if (pendingLove != null && pendingLove != singleQuestionDto.isLovedByViewer()) {
+                    singleQuestionDto.setLoveCount(singleQuestionDto.getLoveCount() + (pendingLove ? 1 : -1));
+                    singleQuestionDto.setLovedByViewer(pendingLove);
+                }
+            }
+        }
+    }
+
+    @Override
+    public boolean loveOrUnloveQuestion(Long id, Long userId) {
+        if (questionLoveBuffer.isEnabled()) {
+            return questionLoveBuffer.toggleLove(QuestionType.SINGLE, id, userId);
         }
 
-        SingleQuestionEntity lovedSingleQuestionEntity = singleQuestionRepository.save(singleQuestionEntity);
-        return mapToSingleQuestionDto(lovedSingleQuestionEntity);
+        return deadlockRetryTemplate.execute(() -> {
+            // Deleting first decides love or unlove atomically on the join row
+            if (singleQuestionRepository.deleteLove(id, userId) > 0) {
+                return false;
+            }
+
+            singleQuestionRepository.insertLove(id, userId);
+            return true;
+        });
     }
 
     @Override
@@ -134,40 +244,42 @@ public class SingleQuestionServiceImpl implements SingleQuestionService {
         singleQuestionRepository.delete(singleQuestionEntity);
     }
 
+    private List<SingleQuestionEntity> findAnsweredQuestionsByUserIdsIn(Set<Long> userIds, FeedCursor feedCursor, int limit) {
+        Pageable pageable = PageRequest.of(0, limit);
+
+        if (feedCursor == null) {
+            return singleQuestionRepository.findAnsweredQuestionsByUserIdsIn(userIds, pageable);
+        }
+
+        return singleQuestionRepository.findAnsweredQuestionsByUserIdsInBefore(
+                userIds, feedCursor.getAnsweredAt(), feedCursor.getId(), pageable);
+    }
+
     private SingleQuestionEntity mapToSingleQuestionEntity(SingleQuestionDto singleQuestionDto) {
         return modelMapper.map(singleQuestionDto, SingleQuestionEntity.class);
     }
 
     private SingleQuestionDto mapToSingleQuestionDto(SingleQuestionEntity singleQuestionEntity) {
-        Set<UserDto> lovedUserDtos = new HashSet<>();
+        return singleQuestionMapper.toSingleQuestionDto(singleQuestionEntity);
+    }
 
-        for (UserEntity userEntity : singleQuestionEntity.getLoves()) {
-            UserDto userDto = modelMapper.map(userEntity, UserDto.class);
-            lovedUserDtos.add(userDto);
-        }
+    private PagedResponse<SingleQuestionDto> mapToSingleQuestionDtoPage(Slice<SingleQuestionEntity> singleQuestionEntityPage) {
+        List<SingleQuestionEntity> singleQuestionEntities = singleQuestionEntityPage.getContent();
+        List<SingleQuestionDto> singleQuestionDtos = singleQuestionMapper.toSingleQuestionDtoList(singleQuestionEntities);
 
-        SingleQuestionDto singleQuestionDto = modelMapper.map(singleQuestionEntity, SingleQuestionDto.class);
-        singleQuestionDto.setLoves(lovedUserDtos);
-        return singleQuestionDto;
+        return new PagedResponse<>(singleQuestionDtos, singleQuestionEntityPage);
     }
 
-    private List<SingleQuestionDto> mapToListSingleQuestionDto(List<SingleQuestionEntity> singleQuestionEntities) {
-        List<SingleQuestionDto> singleQuestionDtos = new ArrayList<>();
+    private CursorResponse<SingleQuestionDto> mapToSingleQuestionDtoCursorResponse(List<SingleQuestionDto> singleQuestionDtos,
+                                                                                  int size) {
+        String nextCursor = null;
 
-        for (SingleQuestionEntity singleQuestionEntity: singleQuestionEntities) {
-            SingleQuestionDto singleQuestionDto = mapToSingleQuestionDto(singleQuestionEntity);
-            singleQuestionDtos.add(singleQuestionDto);
+        if (singleQuestionDtos.size() > size) {
+            singleQuestionDtos = singleQuestionDtos.subList(0, size);
+            SingleQuestionDto lastSingleQuestionDto = singleQuestionDtos.get(size - 1);
+            nextCursor = new FeedCursor(lastSingleQuestionDto.getAnsweredAt(), lastSingleQuestionDto.getId()).encode();
         }
 
-        return singleQuestionDtos;
-    }
-
-    private PagedResponse<SingleQuestionDto> mapToSingleQuestionDtoPage(Page<SingleQuestionEntity> singleQuestionEntityPage) {
-        List<SingleQuestionEntity> singleQuestionEntities = singleQuestionEntityPage.getContent();
-        List<SingleQuestionDto> singleQuestionDtos = mapToListSingleQuestionDto(singleQuestionEntities);
-
-        return new PagedResponse<>(singleQuestionDtos, singleQuestionEntityPage.getNumber(), singleQuestionEntityPage.getSize(),
-                singleQuestionEntityPage.getTotalElements(), singleQuestionEntityPage.getTotalPages(),
-                singleQuestionEntityPage.isFirst(), singleQuestionEntityPage.isLast());
+        return new CursorResponse<>(singleQuestionDtos, nextCursor);
     }
 }
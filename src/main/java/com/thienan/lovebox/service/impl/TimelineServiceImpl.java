@@ -0,0 +1,114 @@
+package com.thienan.lovebox.service.impl;
+
+import com.thienan.lovebox.entity.QuestionType;
+import com.thienan.lovebox.repository.TimelineEntryRepository;
+import com.thienan.lovebox.repository.UserIdAndUsername;
+import com.thienan.lovebox.repository.UserRepository;
+import com.thienan.lovebox.service.TimelineService;
+import com.thienan.lovebox.utils.FeedCursor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Per-user news feed timelines, written when a question gets answered and backfilled on follow.
+ * Answers of authors with more followers than the fan-out threshold are not pushed;
+ * readers pull those at read time instead.
+ */
+@Service
+public class TimelineServiceImpl implements TimelineService {
+
+    private static final int REBUILD_BATCH_SIZE = 500;
+
+    @Autowired
+    TimelineEntryRepository timelineEntryRepository;
+
+    @Autowired
+    UserRepository userRepository;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Value("${app.timelineFanOutThreshold}")
+    private int fanOutThreshold;
+
+    @Value("${app.timelineBackfillSize}")
+    private int backfillSize;
+
+    @Override
+    public void pushQuestion(QuestionType questionType, Long questionId, Instant answeredAt, Set<Long> authorIds) {
+        timelineEntryRepository.fanOut(questionType.name(), questionId, answeredAt, authorIds, fanOutThreshold);
+    }
+
+    @Override
+    public void removeQuestion(QuestionType questionType, Long questionId) {
+        timelineEntryRepository.deleteAllByQuestion(questionType, questionId);
+    }
+
+    // Called after the follow has been counted. Authors who just crossed the threshold are
+    // pulled from now on; everyone else gets their latest answers copied in.
+    @Override
+    public void addAuthor(Long userId, Long authorId) {
+        userRepository.markTimelinePulled(authorId, fanOutThreshold);
+        timelineEntryRepository.backfillSingleQuestions(userId, authorId, fanOutThreshold, backfillSize);
+        timelineEntryRepository.backfillCoupleQuestions(userId, authorId, fanOutThreshold, backfillSize);
+    }
+
+    @Override
+    public void removeAuthor(Long userId, Long authorId) {
+        timelineEntryRepository.deleteAllSingleQuestionsByUserIdAndAuthorId(userId, authorId);
+        timelineEntryRepository.deleteAllCoupleQuestionsByUserIdAndAuthorId(userId, authorId);
+    }
+
+    @Override
+    public List<Long> getQuestionIds(Long userId, QuestionType questionType, FeedCursor feedCursor, int limit) {
+        Pageable pageable = PageRequest.of(0, limit);
+
+        if (feedCursor == null) {
+            return timelineEntryRepository.findQuestionIds(userId, questionType, pageable);
+        }
+
+        return timelineEntryRepository.findQuestionIdsBefore(userId, questionType,
+                feedCursor.getAnsweredAt(), feedCursor.getId(), pageable);
+    }
+
+    @Override
+    public Set<Long> getPulledAuthorIds(Long userId) {
+        return userRepository.findAllPulledFollowingIdsById(userId, fanOutThreshold);
+    }
+
+    // Pushes every answer of authors below the threshold again and clears the pulled marks.
+    // Walks users by id and swaps each range of timelines in its own transaction, so no single
+    // transaction spans the whole table and every feed is complete while the rebuild runs.
+    @Override
+    public void rebuildTimelines() {
+        userRepository.resetTimelinePulled(fanOutThreshold);
+
+        Long lastId = 0L;
+        while (true) {
+            List<UserIdAndUsername> users = userRepository.findAllIdsAndUsernamesAfter(lastId,
+                    PageRequest.of(0, REBUILD_BATCH_SIZE));
+            if (users.isEmpty()) {
+                break;
+            }
+
+            Long afterUserId = lastId;
+            Long lastUserId = users.get(users.size() - 1).getId();
+            transactionTemplate.execute(status -> {
+                timelineEntryRepository.deleteAllByUserIdRange(afterUserId, lastUserId);
+                timelineEntryRepository.rebuildSingleQuestions(fanOutThreshold, afterUserId, lastUserId);
+                timelineEntryRepository.rebuildCoupleQuestions(fanOutThreshold, afterUserId, lastUserId);
+                return null;
+            });
+
+            lastId = lastUserId;
+        }
+    }
+}
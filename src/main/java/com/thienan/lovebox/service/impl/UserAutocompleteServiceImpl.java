@@ -0,0 +1,170 @@
+package com.thienan.lovebox.service.impl;
+
+import com.thienan.lovebox.entity.UserEntity;
+import com.thienan.lovebox.repository.UserRepository;
+import com.thienan.lovebox.service.UserAutocompleteService;
+import com.thienan.lovebox.shared.dto.PhotoDto;
+import com.thienan.lovebox.shared.dto.UserDto;
+import com.thienan.lovebox.shared.mapper.UserMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * In-memory prefix index over usernames and display names, so typeahead never reaches MySQL.
+ * Keys are the normalized name followed by the user id, so several users can share a name.
+ */
+@Service
+public class UserAutocompleteServiceImpl implements UserAutocompleteService {
+
+    private static final int REBUILD_BATCH_SIZE = 500;
+
+    private static final char KEY_SEPARATOR = '\u0000';
+
+    @Autowired
+    UserRepository userRepository;
+
+    @Autowired
+    UserMapper userMapper;
+
+    // All keys of a user share one entry
+    private final ConcurrentSkipListMap<String, Entry> index = new ConcurrentSkipListMap<>();
+
+    private final ConcurrentMap<Long, List<String>> keysByUserId = new ConcurrentHashMap<>();
+
+    @Override
+    public List<UserDto> autocomplete(String prefix, int limit) {
+        String normalizedPrefix = normalize(prefix);
+        Map<Long, UserDto> userDtos = new LinkedHashMap<>();
+
+        for (Map.Entry<String, Entry> entry : index.tailMap(normalizedPrefix).entrySet()) {
+            if (userDtos.size() >= limit || !entry.getKey().startsWith(normalizedPrefix)) {
+                break;
+            }
+            userDtos.computeIfAbsent(entry.getValue().id, userId -> entry.getValue().toUserDto());
+        }
+
+        return new ArrayList<>(userDtos.values());
+    }
+
+    // Applied once the surrounding transaction commits, so rolled back sign-ups never show up
+    @Override
+    public void indexUser(UserDto userDto) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            putUser(userDto);
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCommit() {
+                putUser(userDto);
+            }
+        });
+    }
+
+    @Override
+    public void rebuildIndex() {
+        Long lastId = 0L;
+        while (true) {
+            List<UserEntity> userEntities = userRepository.findAllWithPhotoAfter(lastId,
+                    PageRequest.of(0, REBUILD_BATCH_SIZE));
+            if (userEntities.isEmpty()) {
+                break;
+            }
+
+            for (UserEntity userEntity : userEntities) {
+                putUser(userMapper.toUserBriefDto(userEntity));
+            }
+            lastId = userEntities.get(userEntities.size() - 1).getId();
+        }
+    }
+
+    private void putUser(UserDto userDto) {
+        Entry entry = new Entry(userDto);
+        List<String> keys = getKeys(userDto);
+
+        // compute serializes concurrent updates of the same user
+        keysByUserId.compute(userDto.getId(), (userId, oldKeys) -> {
+            for (String key : keys) {
+                index.put(key, entry);
+            }
+
+            if (oldKeys != null) {
+                for (String oldKey : oldKeys) {
+                    if (!keys.contains(oldKey)) {
+                        index.remove(oldKey);
+                    }
+                }
+            }
+
+            return keys;
+        });
+    }
+
+    private List<String> getKeys(UserDto userDto) {
+        List<String> keys = new ArrayList<>(3);
+        String suffix = KEY_SEPARATOR + Long.toString(userDto.getId());
+
+        keys.add(normalize(userDto.getUsername()) + suffix);
+        keys.add(normalize(userDto.getFirstName() + " " + userDto.getLastName()) + suffix);
+        keys.add(normalize(userDto.getLastName() + " " + userDto.getFirstName()) + suffix);
+
+        return keys;
+    }
+
+    private String normalize(String text) {
+        return text == null ? "" : text.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Only what a suggestion shows, so the index does not keep emails or whole DTOs around.
+     */
+    private static final class Entry {
+
+        private final Long id;
+
+        private final String username;
+
+        private final String firstName;
+
+        private final String lastName;
+
+        private final String photoUrl;
+
+        Entry(UserDto userDto) {
+            this.id = userDto.getId();
+            this.username = userDto.getUsername();
+            this.firstName = userDto.getFirstName();
+            this.lastName = userDto.getLastName();
+            this.photoUrl = userDto.getPhoto() == null ? null : userDto.getPhoto().getUrl();
+        }
+
+        UserDto toUserDto() {
+            UserDto userDto = new UserDto();
+            userDto.setId(id);
+            userDto.setUsername(username);
+            userDto.setFirstName(firstName);
+            userDto.setLastName(lastName);
+
+            if (photoUrl != null) {
+                PhotoDto photoDto = new PhotoDto();
+                photoDto.setUrl(photoUrl);
+                userDto.setPhoto(photoDto);
+            }
+
+            return userDto;
+        }
+    }
+}
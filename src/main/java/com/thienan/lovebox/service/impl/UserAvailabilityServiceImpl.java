@@ -0,0 +1,103 @@
+package com.thienan.lovebox.service.impl;
+
+import com.thienan.lovebox.repository.UserRepository;
+import com.thienan.lovebox.repository.UsernameAndEmail;
+import com.thienan.lovebox.service.UserAvailabilityService;
+import com.thienan.lovebox.utils.BloomFilter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.text.Normalizer;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Answers availability checks from Bloom filters of taken usernames and emails.
+ * Only values the filters might contain are checked against MySQL.
+ */
+@Service
+public class UserAvailabilityServiceImpl implements UserAvailabilityService {
+
+    private static final int REBUILD_BATCH_SIZE = 1000;
+
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+
+    @Value("${app.availabilityFilterExpectedUsers}")
+    private long expectedUsers;
+
+    @Value("${app.availabilityFilterFalsePositiveRate}")
+    private double falsePositiveRate;
+
+    @Autowired
+    UserRepository userRepository;
+
+    private BloomFilter usernameFilter;
+
+    private BloomFilter emailFilter;
+
+    // Until the filters are loaded every check goes to the database
+    private volatile boolean loaded;
+
+    @PostConstruct
+    public void init() {
+        usernameFilter = new BloomFilter(expectedUsers, falsePositiveRate);
+        emailFilter = new BloomFilter(expectedUsers, falsePositiveRate);
+    }
+
+    @Override
+    public boolean isUsernameAvailable(String username) {
+        if (loaded && !usernameFilter.mightContain(normalize(username))) {
+            return true;
+        }
+        return !userRepository.existsByUsername(username);
+    }
+
+    @Override
+    public boolean isEmailAvailable(String email) {
+        if (loaded && !emailFilter.mightContain(normalize(email))) {
+            return true;
+        }
+        return !userRepository.existsByEmail(email);
+    }
+
+    // Added before commit on purpose: a rolled back sign-up only costs a false positive
+    @Override
+    public void addUser(String username, String email) {
+        if (username != null) {
+            usernameFilter.put(normalize(username));
+        }
+        if (email != null) {
+            emailFilter.put(normalize(email));
+        }
+    }
+
+    @Override
+    public void rebuildFilters() {
+        Long lastId = 0L;
+        while (true) {
+            List<UsernameAndEmail> users = userRepository.findAllUsernamesAndEmailsAfter(lastId,
+                    PageRequest.of(0, REBUILD_BATCH_SIZE));
+            if (users.isEmpty()) {
+                break;
+            }
+
+            for (UsernameAndEmail usernameAndEmail : users) {
+                addUser(usernameAndEmail.getUsername(), usernameAndEmail.getEmail());
+            }
+            lastId = users.get(users.size() - 1).getId();
+        }
+
+        loaded = true;
+    }
+
+    // MySQL compares these columns ignoring case and accents, so the filters strip both too.
+    // Rarer collation equivalences are left to the unique keys, which createUser maps to the same error.
+    private String normalize(String value) {
+        String decomposed = Normalizer.normalize(value.trim(), Normalizer.Form.NFD);
+        return COMBINING_MARKS.matcher(decomposed).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+}
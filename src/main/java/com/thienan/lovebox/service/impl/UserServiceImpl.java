@@ -7,28 +7,38 @@ import com.thienan.lovebox.entity.UserEntity;
 import com.thienan.lovebox.exception.service.UserServiceException;
 import com.thienan.lovebox.repository.RoleRepository;
 import com.thienan.lovebox.repository.UserRepository;
+import com.thienan.lovebox.security.CustomUserDetailsService;
 import com.thienan.lovebox.security.JwtTokenProvider;
-import com.thienan.lovebox.service.PhotoService;
+import com.thienan.lovebox.security.TokenVersionCache;
+import com.thienan.lovebox.security.UserPrincipal;
+import com.thienan.lovebox.security.UserPrincipalCache;
+import com.thienan.lovebox.service.TimelineService;
+import com.thienan.lovebox.service.UserAutocompleteService;
+import com.thienan.lovebox.service.UserAvailabilityService;
 import com.thienan.lovebox.service.UserService;
+import com.thienan.lovebox.service.UsernameTrigramService;
 import com.thienan.lovebox.shared.dto.PhotoDto;
 import com.thienan.lovebox.shared.dto.UserDto;
+import com.thienan.lovebox.shared.mapper.UserMapper;
 import com.thienan.lovebox.utils.PagedResponse;
 import org.modelmapper.ModelMapper;
-import org.modelmapper.TypeToken;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
-import org.springframework.web.multipart.MultipartFile;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.Collections;
 import java.util.List;
+import java.util.Set;
 
 @Service
 public class UserServiceImpl implements UserService {
@@ -43,13 +53,37 @@ public class UserServiceImpl implements UserService {
     AuthenticationManager authenticationManager;
 
     @Autowired
-    PhotoService photoService;
+    CustomUserDetailsService customUserDetailsService;
+
+    @Autowired
+    TimelineService timelineService;
+
+    @Autowired
+    UsernameTrigramService usernameTrigramService;
+
+    @Autowired
+    UserAutocompleteService userAutocompleteService;
+
+    @Autowired
+    UserAvailabilityService userAvailabilityService;
 
     @Autowired
     JwtTokenProvider jwtTokenProvider;
 
     @Autowired
-    BCryptPasswordEncoder bCryptPasswordEncoder;
+    UserPrincipalCache userPrincipalCache;
+
+    @Autowired
+    TokenVersionCache tokenVersionCache;
+
+    @Autowired
+    PasswordEncoder passwordEncoder;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Autowired
+    UserMapper userMapper;
 
     @Autowired
     ModelMapper modelMapper;
@@ -74,18 +108,33 @@ public class UserServiceImpl implements UserService {
 
     @Override
     public UserDto createUser(UserDto userDto) {
+        // Hashing waits on the BCrypt pool, so it must not hold a pooled connection meanwhile
+        String encodedPassword = passwordEncoder.encode(userDto.getPassword());
+        try {
+            return transactionTemplate.execute(status -> createUser(userDto, encodedPassword));
+        } catch (DataIntegrityViolationException ex) {
+            // A concurrent sign-up took the name first, or one the check above saw as different
+            // is equal under the column collation
+            throw new UserServiceException("Email already exists");
+        }
+    }
+
+    private UserDto createUser(UserDto userDto, String encodedPassword) {
         if (userRepository.findByUsernameOrEmail(userDto.getUsername(), userDto.getEmail()).isPresent()) {
             throw new UserServiceException("Email already exists");
         }
 
         UserEntity userEntity = mapToUserEntity(userDto);
-        userEntity.setPassword(bCryptPasswordEncoder.encode(userDto.getPassword()));
+        userEntity.setPassword(encodedPassword);
 
         RoleEntity userRoleEntity = roleRepository.findByName(RoleName.ROLE_USER)
                 .orElseThrow(() -> new UserServiceException("Role not found"));
 
         userEntity.setRoles(Collections.singleton(userRoleEntity));
         UserEntity savedUser = userRepository.save(userEntity);
+        userAvailabilityService.addUser(savedUser.getUsername(), savedUser.getEmail());
+        usernameTrigramService.indexUsername(savedUser.getId(), savedUser.getUsername());
+        userAutocompleteService.indexUser(userMapper.toUserBriefDto(savedUser));
 
         return mapToUserDto(savedUser);
     }
@@ -100,60 +149,86 @@ public class UserServiceImpl implements UserService {
         userEntity.setLastName(userDto.getLastName());
 
         UserEntity savedUserEntity = userRepository.save(userEntity);
+        userAvailabilityService.addUser(null, savedUserEntity.getEmail());
+        userPrincipalCache.invalidate(id);
+        userAutocompleteService.indexUser(userMapper.toUserBriefDto(savedUserEntity));
         return mapToUserDto(savedUserEntity);
     }
 
     @Override
-    public UserDto changeUserPhoto(Long id, MultipartFile multipartFile) {
+    public UserDto changeUserPhoto(Long id, PhotoDto photoDto) {
         UserEntity userEntity = userRepository.findById(id)
                 .orElseThrow(() -> new UserServiceException("User with ID " + id + " not found"));
 
-        PhotoDto photoDto = photoService.uploadFile(multipartFile);
         PhotoEntity photoEntity = mapToPhotoEntity(photoDto);
         userEntity.setPhoto(photoEntity);
 
         UserEntity savedUserEntity = userRepository.save(userEntity);
+        userAutocompleteService.indexUser(userMapper.toUserBriefDto(savedUserEntity));
         return mapToUserDto(savedUserEntity);
     }
 
     @Override
-    public UserDto changeUserPassword(Long id, String newPassword) {
+    public String changeUserPassword(Long id, String newPassword) {
         UserEntity userEntity = userRepository.findById(id)
                 .orElseThrow(() -> new UserServiceException("User with ID " + id + " not found"));
 
-        userEntity.setPassword(bCryptPasswordEncoder.encode(newPassword));
-        UserEntity savedUser = userRepository.save(userEntity);
+        userEntity.setPassword(passwordEncoder.encode(newPassword));
+        userRepository.save(userEntity);
 
-        return mapToUserDto(savedUser);
+        // Every token issued before the change is rejected from now on, including the caller's,
+        // so the caller gets a token carrying the new version
+        userRepository.incrementTokenVersion(id);
+        tokenVersionCache.invalidate(id);
+        userPrincipalCache.invalidate(id);
+
+        // The user loaded above is still managed with the old version, so the new one is read back
+        UserPrincipal userPrincipal = customUserDetailsService.loadUserById(id);
+        userPrincipal.setTokenVersion(tokenVersionCache.get(id));
+        return jwtTokenProvider.generateToken(
+                new UsernamePasswordAuthenticationToken(userPrincipal, null, userPrincipal.getAuthorities())
+        );
     }
 
     @Override
     public Boolean checkUsernameAvailability(String username) {
-        return !userRepository.existsByUsername(username);
+        return userAvailabilityService.isUsernameAvailable(username);
     }
 
     @Override
     public Boolean checkEmailAvailability(String email) {
-        return !userRepository.existsByEmail(email);
+        return userAvailabilityService.isEmailAvailable(email);
     }
 
     @Override
+    @Transactional
     public void followOrUnfollowUser(Long id, Long idToFollowOrUnfollow) {
-        UserEntity userEntity = userRepository.findById(id).orElseThrow(() ->
-                new UsernameNotFoundException("User with ID " + id + " not found")
-        );
+        if (!userRepository.existsById(id)) {
+            throw new UsernameNotFoundException("User with ID " + id + " not found");
+        }
 
-        UserEntity userEntityToFollowOrUnfollow = userRepository.findById(idToFollowOrUnfollow).orElseThrow(() ->
-                new UsernameNotFoundException("User with ID " + id + " not found")
-        );
+        if (!userRepository.existsById(idToFollowOrUnfollow)) {
+            throw new UsernameNotFoundException("User with ID " + idToFollowOrUnfollow + " not found");
+        }
 
-        if (!userEntity.getFollowing().contains(userEntityToFollowOrUnfollow)) {
-            userEntity.addFollowing(userEntityToFollowOrUnfollow);
+        // Counters only move when this request actually removed or added the join row, so a
+        // concurrent toggle that got there first leaves them alone
+        int delta;
+        if (userRepository.deleteFollowing(id, idToFollowOrUnfollow) > 0) {
+            delta = -1;
+            timelineService.removeAuthor(id, idToFollowOrUnfollow);
+        } else if (userRepository.insertFollowing(id, idToFollowOrUnfollow) > 0) {
+            delta = 1;
         } else {
-            userEntity.removeFollowing(userEntityToFollowOrUnfollow);
+            return;
         }
 
-        userRepository.save(userEntity);
+        userRepository.updateFollowingCount(id, delta);
+        userRepository.updateFollowersCount(idToFollowOrUnfollow, delta);
+
+        if (delta > 0) {
+            timelineService.addAuthor(id, idToFollowOrUnfollow);
+        }
     }
 
     @Override
@@ -167,32 +242,31 @@ public class UserServiceImpl implements UserService {
 
     @Override
     public Boolean checkUserHasFollow(Long id, Long userId) {
-        UserEntity userEntity = userRepository.findById(id).orElseThrow(() ->
-                new UsernameNotFoundException("User with ID " + id + " not found")
-        );
-
-        UserEntity followedUserEntity = userRepository.findById(userId).orElseThrow(() ->
-                new UsernameNotFoundException("User with ID " + id + " not found")
-        );
-
-        return userEntity.getFollowing().contains(followedUserEntity);
+        return userRepository.existsFollowing(id, userId);
     }
 
     @Override
-    public PagedResponse<UserDto> searchUsers(String username, Pageable pageable) {
-        Page<UserEntity> userPage = userRepository.findAllByUsername(username, pageable);
+    public PagedResponse<UserDto> searchUsers(String username, Pageable pageable, boolean count) {
+        Set<String> trigrams = usernameTrigramService.getTrigrams(username);
+        Slice<UserEntity> userPage = count
+                ? userRepository.findAllByUsername(username, trigrams, trigrams.size(), pageable)
+                : userRepository.findAllSliceByUsername(username, trigrams, trigrams.size(), pageable);
         return mapToUserDtoPage(userPage);
     }
 
     @Override
-    public PagedResponse<UserDto> getFollowing(Long id, Pageable pageable) {
-        Page<UserEntity> userPage = userRepository.findAllFollowingById(id, pageable);
+    public PagedResponse<UserDto> getFollowing(Long id, Pageable pageable, boolean count) {
+        Slice<UserEntity> userPage = count
+                ? userRepository.findAllFollowingById(id, pageable)
+                : userRepository.findAllFollowingSliceById(id, pageable);
         return mapToUserDtoPage(userPage);
     }
 
     @Override
-    public PagedResponse<UserDto> getFollowers(Long id, Pageable pageable) {
-        Page<UserEntity> userPage = userRepository.findAllFollowerById(id, pageable);
+    public PagedResponse<UserDto> getFollowers(Long id, Pageable pageable, boolean count) {
+        Slice<UserEntity> userPage = count
+                ? userRepository.findAllFollowerById(id, pageable)
+                : userRepository.findAllFollowerSliceById(id, pageable);
         return mapToUserDtoPage(userPage);
     }
 
@@ -201,21 +275,14 @@ public class UserServiceImpl implements UserService {
     }
 
     private UserDto mapToUserDto(UserEntity userEntity) {
-        return modelMapper.map(userEntity, UserDto.class);
-    }
-
-    private List<UserDto> mapToListUserDto(List<UserEntity> userEntities) {
-        return modelMapper.map(userEntities, new TypeToken<List<UserDto>>() {
-        }.getType());
+        return userMapper.toUserDto(userEntity);
     }
 
-    private PagedResponse<UserDto> mapToUserDtoPage(Page<UserEntity> userEntityPage) {
+    private PagedResponse<UserDto> mapToUserDtoPage(Slice<UserEntity> userEntityPage) {
         List<UserEntity> userEntities = userEntityPage.getContent();
-        List<UserDto> userDtos = mapToListUserDto(userEntities);
+        List<UserDto> userDtos = userMapper.toUserBriefDtoList(userEntities);
 
-        return new PagedResponse<>(userDtos, userEntityPage.getNumber(), userEntityPage.getSize(),
-                userEntityPage.getTotalElements(), userEntityPage.getTotalPages(),
-                userEntityPage.isFirst(), userEntityPage.isLast());
+        return new PagedResponse<>(userDtos, userEntityPage);
     }
 
     private PhotoEntity mapToPhotoEntity(PhotoDto photoDto) {
@@ -0,0 +1,98 @@
+package com.thienan.lovebox.service.impl;
+
+import com.thienan.lovebox.entity.UsernameTrigramEntity;
+import com.thienan.lovebox.repository.UserIdAndUsername;
+import com.thienan.lovebox.repository.UserRepository;
+import com.thienan.lovebox.repository.UsernameTrigramRepository;
+import com.thienan.lovebox.service.UsernameTrigramService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Keeps one posting per distinct lower-cased trigram of each username, so substring search
+ * only has to check users that contain every trigram of the query.
+ */
+@Service
+public class UsernameTrigramServiceImpl implements UsernameTrigramService {
+
+    private static final int REBUILD_BATCH_SIZE = 500;
+
+    @Autowired
+    UserRepository userRepository;
+
+    @Autowired
+    UsernameTrigramRepository usernameTrigramRepository;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Override
+    public Set<String> getTrigrams(String text) {
+        String lowerCaseText = text.toLowerCase(Locale.ROOT);
+        Set<String> trigrams = new LinkedHashSet<>();
+
+        for (int i = 0; i + 3 <= lowerCaseText.length(); i++) {
+            trigrams.add(lowerCaseText.substring(i, i + 3));
+        }
+
+        return trigrams;
+    }
+
+    @Override
+    @Transactional
+    public void indexUsername(Long userId, String username) {
+        usernameTrigramRepository.deleteAllByUserId(userId);
+        usernameTrigramRepository.saveAll(toUsernameTrigramEntities(userId, username));
+    }
+
+    // Walks users by id and writes postings with plain JDBC batches, since the IDENTITY id keeps
+    // Hibernate from batching inserts. Each batch commits on its own, so nothing piles up in memory.
+    @Override
+    public void rebuildIndex() {
+        usernameTrigramRepository.deleteAllInBatch();
+
+        Long lastId = 0L;
+        while (true) {
+            List<UserIdAndUsername> users = userRepository.findAllIdsAndUsernamesAfter(lastId,
+                    PageRequest.of(0, REBUILD_BATCH_SIZE));
+            if (users.isEmpty()) {
+                break;
+            }
+
+            List<Object[]> postings = new ArrayList<>();
+            for (UserIdAndUsername user : users) {
+                if (user.getUsername() != null) {
+                    for (String trigram : getTrigrams(user.getUsername())) {
+                        postings.add(new Object[]{trigram, user.getId()});
+                    }
+                }
+            }
+            jdbcTemplate.batchUpdate("insert into username_trigrams (trigram, user_id) values (?, ?)", postings);
+
+            lastId = users.get(users.size() - 1).getId();
+        }
+    }
+
+    private List<UsernameTrigramEntity> toUsernameTrigramEntities(Long userId, String username) {
+        List<UsernameTrigramEntity> usernameTrigramEntities = new ArrayList<>();
+
+        if (username == null) {
+            return usernameTrigramEntities;
+        }
+
+        for (String trigram : getTrigrams(username)) {
+            usernameTrigramEntities.add(new UsernameTrigramEntity(trigram, userId));
+        }
+
+        return usernameTrigramEntities;
+    }
+}
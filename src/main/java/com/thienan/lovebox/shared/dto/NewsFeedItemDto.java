@@ -0,0 +1,71 @@
+package com.thienan.lovebox.shared.dto;
+
+import com.thienan.lovebox.entity.QuestionType;
+
+import java.time.Instant;
+
+public class NewsFeedItemDto {
+
+    private QuestionType questionType;
+    private Long id;
+    private Instant answeredAt;
+    private SingleQuestionDto singleQuestion;
+    private CoupleQuestionDto coupleQuestion;
+
+    public NewsFeedItemDto() {
+    }
+
+    public NewsFeedItemDto(SingleQuestionDto singleQuestion) {
+        this.questionType = QuestionType.SINGLE;
+        this.id = singleQuestion.getId();
+        this.answeredAt = singleQuestion.getAnsweredAt();
+        this.singleQuestion = singleQuestion;
+    }
+
+    public NewsFeedItemDto(CoupleQuestionDto coupleQuestion) {
+        this.questionType = QuestionType.COUPLE;
+        this.id = coupleQuestion.getId();
+        this.answeredAt = coupleQuestion.getAnsweredAt();
+        this.coupleQuestion = coupleQuestion;
+    }
+
+    public QuestionType getQuestionType() {
+        return questionType;
+    }
+
+    public void setQuestionType(QuestionType questionType) {
+        this.questionType = questionType;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Instant getAnsweredAt() {
+        return answeredAt;
+    }
+
+    public void setAnsweredAt(Instant answeredAt) {
+        this.answeredAt = answeredAt;
+    }
+
+    public SingleQuestionDto getSingleQuestion() {
+        return singleQuestion;
+    }
+
+    public void setSingleQuestion(SingleQuestionDto singleQuestion) {
+        this.singleQuestion = singleQuestion;
+    }
+
+    public CoupleQuestionDto getCoupleQuestion() {
+        return coupleQuestion;
+    }
+
+    public void setCoupleQuestion(CoupleQuestionDto coupleQuestion) {
+        this.coupleQuestion = coupleQuestion;
+    }
+}
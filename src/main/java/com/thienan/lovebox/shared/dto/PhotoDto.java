@@ -4,6 +4,9 @@ public class PhotoDto {
 
     private Long id;
     private String url;
+    private String largeUrl;
+    private String mediumUrl;
+    private String smallUrl;
 
     public Long getId() {
         return id;
@@ -20,4 +23,28 @@ public class PhotoDto {
     public void setUrl(String url) {
         this.url = url;
     }
+
+    public String getLargeUrl() {
+        return largeUrl;
+    }
+
+    public void setLargeUrl(String largeUrl) {
+        this.largeUrl = largeUrl;
+    }
+
+    public String getMediumUrl() {
+        return mediumUrl;
+    }
+
+    public void setMediumUrl(String mediumUrl) {
+        this.mediumUrl = mediumUrl;
+    }
+
+    public String getSmallUrl() {
+        return smallUrl;
+    }
+
+    public void setSmallUrl(String smallUrl) {
+        this.smallUrl = smallUrl;
+    }
 }
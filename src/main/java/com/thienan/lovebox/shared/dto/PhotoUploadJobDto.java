@@ -0,0 +1,54 @@
+package com.thienan.lovebox.shared.dto;
+
+import com.thienan.lovebox.entity.PhotoUploadJobStatus;
+
+import java.time.Instant;
+
+public class PhotoUploadJobDto {
+
+    private Long id;
+    private PhotoUploadJobStatus status;
+    private PhotoDto photo;
+    private String errorMessage;
+    private Instant createdAt;
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public PhotoUploadJobStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(PhotoUploadJobStatus status) {
+        this.status = status;
+    }
+
+    public PhotoDto getPhoto() {
+        return photo;
+    }
+
+    public void setPhoto(PhotoDto photo) {
+        this.photo = photo;
+    }
+
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+
+    public void setErrorMessage(String errorMessage) {
+        this.errorMessage = errorMessage;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Instant createdAt) {
+        this.createdAt = createdAt;
+    }
+}
@@ -1,8 +1,6 @@
 package com.thienan.lovebox.shared.dto;
 
 import java.time.Instant;
-import java.util.HashSet;
-import java.util.Set;
 
 public class SingleQuestionDto {
 
@@ -14,7 +12,8 @@ public class SingleQuestionDto {
     private String answerText;
     private boolean answered;
     private Instant answeredAt;
-    private Set<UserDto> loves = new HashSet<>();
+    private long loveCount;
+    private boolean lovedByViewer;
 
     public Long getId() {
         return id;
@@ -80,11 +79,19 @@ public class SingleQuestionDto {
         this.answeredAt = answeredAt;
     }
 
-    public Set<UserDto> getLoves() {
-        return loves;
+    public long getLoveCount() {
+        return loveCount;
     }
 
-    public void setLoves(Set<UserDto> loves) {
-        this.loves = loves;
+    public void setLoveCount(long loveCount) {
+        this.loveCount = loveCount;
+    }
+
+    public boolean isLovedByViewer() {
+        return lovedByViewer;
+    }
+
+    public void setLovedByViewer(boolean lovedByViewer) {
+        this.lovedByViewer = lovedByViewer;
     }
 }
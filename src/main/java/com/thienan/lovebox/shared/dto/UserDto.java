@@ -16,6 +16,8 @@ public class UserDto {
     private Set<RoleDto> roles = new HashSet<>();
     private Set<UserDto> following = new HashSet<>();
     private Set<UserDto> followers = new HashSet<>();
+    private int followingCount;
+    private int followersCount;
     private BffDetailDto bffDetail;
 
     public Long getId() {
@@ -106,6 +108,22 @@ public class UserDto {
         this.followers = followers;
     }
 
+    public int getFollowingCount() {
+        return followingCount;
+    }
+
+    public void setFollowingCount(int followingCount) {
+        this.followingCount = followingCount;
+    }
+
+    public int getFollowersCount() {
+        return followersCount;
+    }
+
+    public void setFollowersCount(int followersCount) {
+        this.followersCount = followersCount;
+    }
+
     public BffDetailDto getBffDetail() {
         return bffDetail;
     }
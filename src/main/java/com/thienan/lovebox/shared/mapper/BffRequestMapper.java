@@ -0,0 +1,57 @@
+package com.thienan.lovebox.shared.mapper;
+
+import com.thienan.lovebox.entity.BffRequestEntity;
+import com.thienan.lovebox.payload.response.BffRequestResponse;
+import com.thienan.lovebox.shared.dto.BffRequestDto;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Component
+public class BffRequestMapper {
+
+    @Autowired
+    UserMapper userMapper;
+
+    public BffRequestDto toBffRequestDto(BffRequestEntity bffRequestEntity) {
+        BffRequestDto bffRequestDto = new BffRequestDto();
+        bffRequestDto.setId(bffRequestEntity.getId());
+        bffRequestDto.setCreatedAt(bffRequestEntity.getCreatedAt());
+        bffRequestDto.setFromUser(userMapper.toUserBriefDto(bffRequestEntity.getFromUser()));
+        bffRequestDto.setToUser(userMapper.toUserBriefDto(bffRequestEntity.getToUser()));
+        bffRequestDto.setText(bffRequestEntity.getText());
+        return bffRequestDto;
+    }
+
+    public List<BffRequestDto> toBffRequestDtoList(List<BffRequestEntity> bffRequestEntities) {
+        List<BffRequestDto> bffRequestDtos = new ArrayList<>(bffRequestEntities.size());
+
+        for (BffRequestEntity bffRequestEntity : bffRequestEntities) {
+            bffRequestDtos.add(toBffRequestDto(bffRequestEntity));
+        }
+
+        return bffRequestDtos;
+    }
+
+    public BffRequestResponse toBffRequestResponse(BffRequestDto bffRequestDto) {
+        BffRequestResponse bffRequestResponse = new BffRequestResponse();
+        bffRequestResponse.setId(bffRequestDto.getId());
+        bffRequestResponse.setCreatedAt(bffRequestDto.getCreatedAt());
+        bffRequestResponse.setFromUser(userMapper.toUserBriefDetailResponse(bffRequestDto.getFromUser()));
+        bffRequestResponse.setToUser(userMapper.toUserBriefDetailResponse(bffRequestDto.getToUser()));
+        bffRequestResponse.setText(bffRequestDto.getText());
+        return bffRequestResponse;
+    }
+
+    public List<BffRequestResponse> toBffRequestResponseList(List<BffRequestDto> bffRequestDtos) {
+        List<BffRequestResponse> bffRequestResponses = new ArrayList<>(bffRequestDtos.size());
+
+        for (BffRequestDto bffRequestDto : bffRequestDtos) {
+            bffRequestResponses.add(toBffRequestResponse(bffRequestDto));
+        }
+
+        return bffRequestResponses;
+    }
+}
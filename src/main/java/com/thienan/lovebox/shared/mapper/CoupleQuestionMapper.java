@@ -0,0 +1,68 @@
+package com.thienan.lovebox.shared.mapper;
+
+import com.thienan.lovebox.entity.CoupleQuestionEntity;
+import com.thienan.lovebox.payload.response.CoupleQuestionResponse;
+import com.thienan.lovebox.shared.dto.CoupleQuestionDto;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Component
+public class CoupleQuestionMapper {
+
+    @Autowired
+    UserMapper userMapper;
+
+    public CoupleQuestionDto toCoupleQuestionDto(CoupleQuestionEntity coupleQuestionEntity) {
+        CoupleQuestionDto coupleQuestionDto = new CoupleQuestionDto();
+        coupleQuestionDto.setId(coupleQuestionEntity.getId());
+        coupleQuestionDto.setCreatedAt(coupleQuestionEntity.getCreatedAt());
+        coupleQuestionDto.setQuestioner(userMapper.toUserBriefDto(coupleQuestionEntity.getQuestioner()));
+        coupleQuestionDto.setFirstAnswerer(userMapper.toUserBriefDto(coupleQuestionEntity.getFirstAnswerer()));
+        coupleQuestionDto.setSecondAnswerer(userMapper.toUserBriefDto(coupleQuestionEntity.getSecondAnswerer()));
+        coupleQuestionDto.setQuestionText(coupleQuestionEntity.getQuestionText());
+        coupleQuestionDto.setFirstAnswerText(coupleQuestionEntity.getFirstAnswerText());
+        coupleQuestionDto.setSecondAnswerText(coupleQuestionEntity.getSecondAnswerText());
+        coupleQuestionDto.setAnswered(coupleQuestionEntity.isAnswered());
+        coupleQuestionDto.setAnsweredAt(coupleQuestionEntity.getAnsweredAt());
+        return coupleQuestionDto;
+    }
+
+    public List<CoupleQuestionDto> toCoupleQuestionDtoList(List<CoupleQuestionEntity> coupleQuestionEntities) {
+        List<CoupleQuestionDto> coupleQuestionDtos = new ArrayList<>(coupleQuestionEntities.size());
+
+        for (CoupleQuestionEntity coupleQuestionEntity : coupleQuestionEntities) {
+            coupleQuestionDtos.add(toCoupleQuestionDto(coupleQuestionEntity));
+        }
+
+        return coupleQuestionDtos;
+    }
+
+    public CoupleQuestionResponse toCoupleQuestionResponse(CoupleQuestionDto coupleQuestionDto) {
+        CoupleQuestionResponse coupleQuestionResponse = new CoupleQuestionResponse();
+        coupleQuestionResponse.setId(coupleQuestionDto.getId());
+        coupleQuestionResponse.setCreatedAt(coupleQuestionDto.getCreatedAt());
+        coupleQuestionResponse.setFirstAnswerer(userMapper.toUserBriefDetailResponse(coupleQuestionDto.getFirstAnswerer()));
+        coupleQuestionResponse.setSecondAnswerer(userMapper.toUserBriefDetailResponse(coupleQuestionDto.getSecondAnswerer()));
+        coupleQuestionResponse.setQuestionText(coupleQuestionDto.getQuestionText());
+        coupleQuestionResponse.setFirstAnswerText(coupleQuestionDto.getFirstAnswerText());
+        coupleQuestionResponse.setSecondAnswerText(coupleQuestionDto.getSecondAnswerText());
+        coupleQuestionResponse.setAnswered(coupleQuestionDto.isAnswered());
+        coupleQuestionResponse.setAnsweredAt(coupleQuestionDto.getAnsweredAt());
+        coupleQuestionResponse.setLoveCount(coupleQuestionDto.getLoveCount());
+        coupleQuestionResponse.setLovedByViewer(coupleQuestionDto.isLovedByViewer());
+        return coupleQuestionResponse;
+    }
+
+    public List<CoupleQuestionResponse> toCoupleQuestionResponseList(List<CoupleQuestionDto> coupleQuestionDtos) {
+        List<CoupleQuestionResponse> coupleQuestionResponses = new ArrayList<>(coupleQuestionDtos.size());
+
+        for (CoupleQuestionDto coupleQuestionDto : coupleQuestionDtos) {
+            coupleQuestionResponses.add(toCoupleQuestionResponse(coupleQuestionDto));
+        }
+
+        return coupleQuestionResponses;
+    }
+}
@@ -0,0 +1,46 @@
+package com.thienan.lovebox.shared.mapper;
+
+import com.thienan.lovebox.payload.response.NewsFeedItemResponse;
+import com.thienan.lovebox.shared.dto.NewsFeedItemDto;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Component
+public class NewsFeedItemMapper {
+
+    @Autowired
+    SingleQuestionMapper singleQuestionMapper;
+
+    @Autowired
+    CoupleQuestionMapper coupleQuestionMapper;
+
+    public NewsFeedItemResponse toNewsFeedItemResponse(NewsFeedItemDto newsFeedItemDto) {
+        NewsFeedItemResponse newsFeedItemResponse = new NewsFeedItemResponse();
+        newsFeedItemResponse.setQuestionType(newsFeedItemDto.getQuestionType());
+
+        if (newsFeedItemDto.getSingleQuestion() != null) {
+            newsFeedItemResponse.setSingleQuestion(
+                    singleQuestionMapper.toSingleQuestionResponse(newsFeedItemDto.getSingleQuestion()));
+        }
+
+        if (newsFeedItemDto.getCoupleQuestion() != null) {
+            newsFeedItemResponse.setCoupleQuestion(
+                    coupleQuestionMapper.toCoupleQuestionResponse(newsFeedItemDto.getCoupleQuestion()));
+        }
+
+        return newsFeedItemResponse;
+    }
+
+    public List<NewsFeedItemResponse> toNewsFeedItemResponseList(List<NewsFeedItemDto> newsFeedItemDtos) {
+        List<NewsFeedItemResponse> newsFeedItemResponses = new ArrayList<>(newsFeedItemDtos.size());
+
+        for (NewsFeedItemDto newsFeedItemDto : newsFeedItemDtos) {
+            newsFeedItemResponses.add(toNewsFeedItemResponse(newsFeedItemDto));
+        }
+
+        return newsFeedItemResponses;
+    }
+}
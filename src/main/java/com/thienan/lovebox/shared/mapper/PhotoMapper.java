@@ -0,0 +1,38 @@
+package com.thienan.lovebox.shared.mapper;
+
+import com.thienan.lovebox.entity.PhotoEntity;
+import com.thienan.lovebox.payload.response.PhotoResponse;
+import com.thienan.lovebox.shared.dto.PhotoDto;
+import org.springframework.stereotype.Component;
+
+@Component
+public class PhotoMapper {
+
+    public PhotoDto toPhotoDto(PhotoEntity photoEntity) {
+        if (photoEntity == null) {
+            return null;
+        }
+
+        PhotoDto photoDto = new PhotoDto();
+        photoDto.setId(photoEntity.getId());
+        photoDto.setUrl(photoEntity.getUrl());
+        photoDto.setLargeUrl(photoEntity.getLargeUrl());
+        photoDto.setMediumUrl(photoEntity.getMediumUrl());
+        photoDto.setSmallUrl(photoEntity.getSmallUrl());
+        return photoDto;
+    }
+
+    public PhotoResponse toPhotoResponse(PhotoDto photoDto) {
+        if (photoDto == null) {
+            return null;
+        }
+
+        PhotoResponse photoResponse = new PhotoResponse();
+        photoResponse.setId(photoDto.getId());
+        photoResponse.setUrl(photoDto.getUrl());
+        photoResponse.setLargeUrl(photoDto.getLargeUrl());
+        photoResponse.setMediumUrl(photoDto.getMediumUrl());
+        photoResponse.setSmallUrl(photoDto.getSmallUrl());
+        return photoResponse;
+    }
+}
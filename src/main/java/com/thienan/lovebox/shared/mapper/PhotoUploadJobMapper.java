@@ -0,0 +1,34 @@
+package com.thienan.lovebox.shared.mapper;
+
+import com.thienan.lovebox.entity.PhotoUploadJobEntity;
+import com.thienan.lovebox.payload.response.PhotoUploadJobResponse;
+import com.thienan.lovebox.shared.dto.PhotoUploadJobDto;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+@Component
+public class PhotoUploadJobMapper {
+
+    @Autowired
+    PhotoMapper photoMapper;
+
+    public PhotoUploadJobDto toPhotoUploadJobDto(PhotoUploadJobEntity photoUploadJobEntity) {
+        PhotoUploadJobDto photoUploadJobDto = new PhotoUploadJobDto();
+        photoUploadJobDto.setId(photoUploadJobEntity.getId());
+        photoUploadJobDto.setStatus(photoUploadJobEntity.getStatus());
+        photoUploadJobDto.setPhoto(photoMapper.toPhotoDto(photoUploadJobEntity.getPhoto()));
+        photoUploadJobDto.setErrorMessage(photoUploadJobEntity.getErrorMessage());
+        photoUploadJobDto.setCreatedAt(photoUploadJobEntity.getCreatedAt());
+        return photoUploadJobDto;
+    }
+
+    public PhotoUploadJobResponse toPhotoUploadJobResponse(PhotoUploadJobDto photoUploadJobDto) {
+        PhotoUploadJobResponse photoUploadJobResponse = new PhotoUploadJobResponse();
+        photoUploadJobResponse.setId(photoUploadJobDto.getId());
+        photoUploadJobResponse.setStatus(photoUploadJobDto.getStatus());
+        photoUploadJobResponse.setPhoto(photoMapper.toPhotoResponse(photoUploadJobDto.getPhoto()));
+        photoUploadJobResponse.setErrorMessage(photoUploadJobDto.getErrorMessage());
+        photoUploadJobResponse.setCreatedAt(photoUploadJobDto.getCreatedAt());
+        return photoUploadJobResponse;
+    }
+}
@@ -0,0 +1,64 @@
+package com.thienan.lovebox.shared.mapper;
+
+import com.thienan.lovebox.entity.SingleQuestionEntity;
+import com.thienan.lovebox.payload.response.SingleQuestionResponse;
+import com.thienan.lovebox.shared.dto.SingleQuestionDto;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Component
+public class SingleQuestionMapper {
+
+    @Autowired
+    UserMapper userMapper;
+
+    public SingleQuestionDto toSingleQuestionDto(SingleQuestionEntity singleQuestionEntity) {
+        SingleQuestionDto singleQuestionDto = new SingleQuestionDto();
+        singleQuestionDto.setId(singleQuestionEntity.getId());
+        singleQuestionDto.setCreatedAt(singleQuestionEntity.getCreatedAt());
+        singleQuestionDto.setQuestioner(userMapper.toUserBriefDto(singleQuestionEntity.getQuestioner()));
+        singleQuestionDto.setAnswerer(userMapper.toUserBriefDto(singleQuestionEntity.getAnswerer()));
+        singleQuestionDto.setQuestionText(singleQuestionEntity.getQuestionText());
+        singleQuestionDto.setAnswerText(singleQuestionEntity.getAnswerText());
+        singleQuestionDto.setAnswered(singleQuestionEntity.isAnswered());
+        singleQuestionDto.setAnsweredAt(singleQuestionEntity.getAnsweredAt());
+        return singleQuestionDto;
+    }
+
+    public List<SingleQuestionDto> toSingleQuestionDtoList(List<SingleQuestionEntity> singleQuestionEntities) {
+        List<SingleQuestionDto> singleQuestionDtos = new ArrayList<>(singleQuestionEntities.size());
+
+        for (SingleQuestionEntity singleQuestionEntity : singleQuestionEntities) {
+            singleQuestionDtos.add(toSingleQuestionDto(singleQuestionEntity));
+        }
+
+        return singleQuestionDtos;
+    }
+
+    public SingleQuestionResponse toSingleQuestionResponse(SingleQuestionDto singleQuestionDto) {
+        SingleQuestionResponse singleQuestionResponse = new SingleQuestionResponse();
+        singleQuestionResponse.setId(singleQuestionDto.getId());
+        singleQuestionResponse.setCreatedAt(singleQuestionDto.getCreatedAt());
+        singleQuestionResponse.setAnswerer(userMapper.toUserBriefDetailResponse(singleQuestionDto.getAnswerer()));
+        singleQuestionResponse.setQuestionText(singleQuestionDto.getQuestionText());
+        singleQuestionResponse.setAnswerText(singleQuestionDto.getAnswerText());
+        singleQuestionResponse.setAnswered(singleQuestionDto.isAnswered());
+        singleQuestionResponse.setAnsweredAt(singleQuestionDto.getAnsweredAt());
+        singleQuestionResponse.setLoveCount(singleQuestionDto.getLoveCount());
+        singleQuestionResponse.setLovedByViewer(singleQuestionDto.isLovedByViewer());
+        return singleQuestionResponse;
+    }
+
+    public List<SingleQuestionResponse> toSingleQuestionResponseList(List<SingleQuestionDto> singleQuestionDtos) {
+        List<SingleQuestionResponse> singleQuestionResponses = new ArrayList<>(singleQuestionDtos.size());
+
+        for (SingleQuestionDto singleQuestionDto : singleQuestionDtos) {
+            singleQuestionResponses.add(toSingleQuestionResponse(singleQuestionDto));
+        }
+
+        return singleQuestionResponses;
+    }
+}
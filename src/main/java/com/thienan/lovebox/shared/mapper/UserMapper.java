@@ -0,0 +1,113 @@
+package com.thienan.lovebox.shared.mapper;
+
+import com.thienan.lovebox.entity.BffDetailEntity;
+import com.thienan.lovebox.entity.RoleEntity;
+import com.thienan.lovebox.entity.UserEntity;
+import com.thienan.lovebox.payload.response.UserBriefDetailResponse;
+import com.thienan.lovebox.shared.dto.BffDetailDto;
+import com.thienan.lovebox.shared.dto.RoleDto;
+import com.thienan.lovebox.shared.dto.UserDto;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+@Component
+public class UserMapper {
+
+    @Autowired
+    PhotoMapper photoMapper;
+
+    // Full user including roles and BFF detail, used for the user's own profile
+    public UserDto toUserDto(UserEntity userEntity) {
+        if (userEntity == null) {
+            return null;
+        }
+
+        UserDto userDto = toUserBriefDto(userEntity);
+        userDto.setPassword(userEntity.getPassword());
+        userDto.setFollowingCount(userEntity.getFollowingCount());
+        userDto.setFollowersCount(userEntity.getFollowersCount());
+        userDto.setBffDetail(toBffDetailDto(userEntity.getBffDetail()));
+
+        Set<RoleDto> roleDtos = new HashSet<>();
+        for (RoleEntity roleEntity : userEntity.getRoles()) {
+            RoleDto roleDto = new RoleDto();
+            roleDto.setId(roleEntity.getId());
+            roleDto.setName(roleEntity.getName());
+            roleDtos.add(roleDto);
+        }
+        userDto.setRoles(roleDtos);
+
+        return userDto;
+    }
+
+    // Only the fields shown in lists, so no lazy association is touched
+    public UserDto toUserBriefDto(UserEntity userEntity) {
+        if (userEntity == null) {
+            return null;
+        }
+
+        UserDto userDto = new UserDto();
+        userDto.setId(userEntity.getId());
+        userDto.setUsername(userEntity.getUsername());
+        userDto.setEmail(userEntity.getEmail());
+        userDto.setFirstName(userEntity.getFirstName());
+        userDto.setLastName(userEntity.getLastName());
+        userDto.setMoodMessage(userEntity.getMoodMessage());
+        userDto.setPhoto(photoMapper.toPhotoDto(userEntity.getPhoto()));
+        return userDto;
+    }
+
+    public List<UserDto> toUserBriefDtoList(List<UserEntity> userEntities) {
+        List<UserDto> userDtos = new ArrayList<>(userEntities.size());
+
+        for (UserEntity userEntity : userEntities) {
+            userDtos.add(toUserBriefDto(userEntity));
+        }
+
+        return userDtos;
+    }
+
+    public BffDetailDto toBffDetailDto(BffDetailEntity bffDetailEntity) {
+        if (bffDetailEntity == null) {
+            return null;
+        }
+
+        BffDetailDto bffDetailDto = new BffDetailDto();
+        bffDetailDto.setId(bffDetailEntity.getId());
+        bffDetailDto.setCreatedAt(bffDetailEntity.getCreatedAt());
+        bffDetailDto.setFirstUser(toUserBriefDto(bffDetailEntity.getFirstUser()));
+        bffDetailDto.setSecondUser(toUserBriefDto(bffDetailEntity.getSecondUser()));
+        bffDetailDto.setDescription(bffDetailEntity.getDescription());
+        return bffDetailDto;
+    }
+
+    public UserBriefDetailResponse toUserBriefDetailResponse(UserDto userDto) {
+        if (userDto == null) {
+            return null;
+        }
+
+        UserBriefDetailResponse userBriefDetailResponse = new UserBriefDetailResponse();
+        userBriefDetailResponse.setId(userDto.getId());
+        userBriefDetailResponse.setUsername(userDto.getUsername());
+        userBriefDetailResponse.setEmail(userDto.getEmail());
+        userBriefDetailResponse.setFirstName(userDto.getFirstName());
+        userBriefDetailResponse.setLastName(userDto.getLastName());
+        userBriefDetailResponse.setPhoto(photoMapper.toPhotoResponse(userDto.getPhoto()));
+        return userBriefDetailResponse;
+    }
+
+    public List<UserBriefDetailResponse> toUserBriefDetailResponseList(List<UserDto> userDtos) {
+        List<UserBriefDetailResponse> userBriefDetailResponses = new ArrayList<>(userDtos.size());
+
+        for (UserDto userDto : userDtos) {
+            userBriefDetailResponses.add(toUserBriefDetailResponse(userDto));
+        }
+
+        return userBriefDetailResponses;
+    }
+}
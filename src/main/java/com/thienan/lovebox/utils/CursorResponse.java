@@ -0,0 +1,33 @@
+package com.thienan.lovebox.utils;
+
+import java.util.List;
+
+public class CursorResponse<T> {
+
+    private List<T> content;
+    private String nextCursor;
+
+    public CursorResponse() {
+    }
+
+    public CursorResponse(List<T> content, String nextCursor) {
+        this.content = content;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<T> getContent() {
+        return content;
+    }
+
+    public void setContent(List<T> content) {
+        this.content = content;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+}
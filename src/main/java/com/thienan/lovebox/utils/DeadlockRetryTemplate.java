@@ -0,0 +1,59 @@
+package com.thienan.lovebox.utils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Runs a short write in its own transaction and starts it again when InnoDB picks it as a
+ * deadlock victim or a lock wait times out. Callers must not already be inside a transaction.
+ */
+@Component
+public class DeadlockRetryTemplate {
+
+    private static final Logger logger = LoggerFactory.getLogger(DeadlockRetryTemplate.class);
+
+    private static final long BASE_BACKOFF_IN_MS = 10;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final int maxAttempts;
+
+    public DeadlockRetryTemplate(PlatformTransactionManager transactionManager,
+                                 @Value("${app.deadlockRetryAttempts}") int maxAttempts) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.maxAttempts = maxAttempts;
+    }
+
+    public <T> T execute(Supplier<T> action) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> action.get());
+            } catch (PessimisticLockingFailureException ex) {
+                if (attempt >= maxAttempts) {
+                    throw ex;
+                }
+                logger.debug("Retrying after lock failure, attempt {} of {}", attempt, maxAttempts, ex);
+                backOff(attempt);
+            }
+        }
+    }
+
+    // Jittered, so the two transactions that deadlocked do not collide again
+    private void backOff(int attempt) {
+        long backoff = BASE_BACKOFF_IN_MS * attempt + ThreadLocalRandom.current().nextLong(BASE_BACKOFF_IN_MS);
+        try {
+            Thread.sleep(backoff);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting to retry", ex);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.thienan.lovebox.utils;
+
+import com.thienan.lovebox.entity.QuestionType;
+import com.thienan.lovebox.exception.BadRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+
+/**
+ * Position in a feed ordered by (answeredAt desc, id desc). The merged news feed also
+ * records the question type of the last item. Clients only ever see the encoded, opaque form.
+ */
+public class FeedCursor {
+
+    private static final String SEPARATOR = "_";
+
+    private final Instant answeredAt;
+    private final Long id;
+    private final QuestionType questionType;
+
+    public FeedCursor(Instant answeredAt, Long id) {
+        this(answeredAt, id, null);
+    }
+
+    public FeedCursor(Instant answeredAt, Long id, QuestionType questionType) {
+        this.answeredAt = answeredAt;
+        this.id = id;
+        this.questionType = questionType;
+    }
+
+    public static FeedCursor decode(String cursor) {
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = decoded.split(SEPARATOR);
+            if (parts.length != 2 && parts.length != 3) {
+                throw new IllegalArgumentException("Unexpected number of cursor parts");
+            }
+
+            return new FeedCursor(
+                    Instant.parse(parts[0]),
+                    Long.parseLong(parts[1]),
+                    parts.length == 3 ? QuestionType.valueOf(parts[2]) : null
+            );
+        } catch (RuntimeException e) {
+            throw new BadRequestException("Invalid cursor", e);
+        }
+    }
+
+    public String encode() {
+        String raw = answeredAt.toString() + SEPARATOR + id;
+        if (questionType != null) {
+            raw += SEPARATOR + questionType.name();
+        }
+
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public Instant getAnsweredAt() {
+        return answeredAt;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public QuestionType getQuestionType() {
+        return questionType;
+    }
+}
@@ -1,5 +1,8 @@
 package com.thienan.lovebox.utils;
 
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
+
 import java.util.List;
 
 public class PagedResponse<T> {
@@ -20,6 +23,18 @@ public class PagedResponse<T> {
         this.pagination = new Pagination(page, size, totalElements, totalPages, first, last);
     }
 
+    public PagedResponse(List<T> content, Slice<?> slice) {
+        this.content = content;
+
+        if (slice instanceof Page) {
+            Page<?> page = (Page<?>) slice;
+            this.pagination = new Pagination(page.getNumber(), page.getSize(), page.getTotalElements(),
+                    page.getTotalPages(), page.isFirst(), page.isLast());
+        } else {
+            this.pagination = new Pagination(slice.getNumber(), slice.getSize(), slice.isFirst(), slice.hasNext());
+        }
+    }
+
     public List<T> getContent() {
         return content;
     }
@@ -1,13 +1,21 @@
 package com.thienan.lovebox.utils;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Totals are only filled in for counted pages. Slice pages leave them null
+ * and report whether there is a next page through {@code hasNext}.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public class Pagination {
 
     private int page;
     private int size;
-    private long totalElements;
-    private int totalPages;
+    private Long totalElements;
+    private Integer totalPages;
     private boolean first;
     private boolean last;
+    private boolean hasNext;
 
     public Pagination() {
     }
@@ -19,6 +27,15 @@ public class Pagination {
         this.totalPages = totalPages;
         this.first = first;
         this.last = last;
+        this.hasNext = !last;
+    }
+
+    public Pagination(int page, int size, boolean first, boolean hasNext) {
+        this.page = page;
+        this.size = size;
+        this.first = first;
+        this.last = !hasNext;
+        this.hasNext = hasNext;
     }
 
     public int getPage() {
@@ -37,19 +54,19 @@ public class Pagination {
         this.size = size;
     }
 
-    public long getTotalElements() {
+    public Long getTotalElements() {
         return totalElements;
     }
 
-    public void setTotalElements(long totalElements) {
+    public void setTotalElements(Long totalElements) {
         this.totalElements = totalElements;
     }
 
-    public int getTotalPages() {
+    public Integer getTotalPages() {
         return totalPages;
     }
 
-    public void setTotalPages(int totalPages) {
+    public void setTotalPages(Integer totalPages) {
         this.totalPages = totalPages;
     }
 
@@ -68,4 +85,12 @@ public class Pagination {
     public void setLast(boolean last) {
         this.last = last;
     }
+
+    public boolean isHasNext() {
+        return hasNext;
+    }
+
+    public void setHasNext(boolean hasNext) {
+        this.hasNext = hasNext;
+    }
 }
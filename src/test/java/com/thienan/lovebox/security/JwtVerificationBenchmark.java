@@ -0,0 +1,74 @@
+package com.thienan.lovebox.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Verifies one token per invocation, with the previous double parse (validate, then read the
+ * subject, each with a fresh parser) and with the single parse on the prebuilt parser.
+ * Run with the main method from the test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtVerificationBenchmark {
+
+    private static final String JWT_SECRET = "JWTSecretKey";
+
+    private JwtTokenProvider jwtTokenProvider;
+
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtTokenProvider = new JwtTokenProvider();
+        ReflectionTestUtils.setField(jwtTokenProvider, "jwtSecret", JWT_SECRET);
+        ReflectionTestUtils.setField(jwtTokenProvider, "jwtExpirationInMs", 604800000);
+        jwtTokenProvider.init();
+
+        List<GrantedAuthority> authorities = Collections.singletonList(new SimpleGrantedAuthority("ROLE_USER"));
+        UserPrincipal userPrincipal = new UserPrincipal(1L, "user", "First", "Last",
+                "user@lovebox.com", "password", authorities);
+        token = jwtTokenProvider.generateToken(
+                new UsernamePasswordAuthenticationToken(userPrincipal, null, authorities));
+    }
+
+    @Benchmark
+    public Long doubleParse() {
+        Jwts.parser().setSigningKey(JWT_SECRET).parseClaimsJws(token);
+
+        Claims claims = Jwts.parser()
+                .setSigningKey(JWT_SECRET)
+                .parseClaimsJws(token)
+                .getBody();
+
+        return Long.parseLong(claims.getSubject());
+    }
+
+    @Benchmark
+    public Long singleParse() {
+        Claims claims = jwtTokenProvider.parseClaims(token);
+        return jwtTokenProvider.getUserIdFromClaims(claims);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(JwtVerificationBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
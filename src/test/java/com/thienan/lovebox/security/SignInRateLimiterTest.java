@@ -0,0 +1,96 @@
+package com.thienan.lovebox.security;
+
+import com.thienan.lovebox.exception.TooManyRequestsException;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.Assert.fail;
+
+public class SignInRateLimiterTest {
+
+    private static final String ADDRESS = "203.0.113.7";
+
+    private SignInRateLimiter signInRateLimiter;
+
+    @Before
+    public void setUp() {
+        signInRateLimiter = createRateLimiter(3, 60000L, 100, 60000L);
+    }
+
+    @Test
+    public void allowsBurstOfAttemptsPerAccount() {
+        for (int i = 0; i < 3; i++) {
+            signInRateLimiter.checkSignIn("alice", ADDRESS);
+        }
+    }
+
+    @Test(expected = TooManyRequestsException.class)
+    public void rejectsAttemptBeyondAccountBurst() {
+        for (int i = 0; i < 4; i++) {
+            signInRateLimiter.checkSignIn("alice", ADDRESS);
+        }
+    }
+
+    @Test(expected = TooManyRequestsException.class)
+    public void accountIsMatchedIgnoringCase() {
+        signInRateLimiter.checkSignIn("Alice", ADDRESS);
+        signInRateLimiter.checkSignIn("ALICE", ADDRESS);
+        signInRateLimiter.checkSignIn("alice", ADDRESS);
+        signInRateLimiter.checkSignIn("aLiCe", ADDRESS);
+    }
+
+    @Test
+    public void accountsDoNotShareBuckets() {
+        for (int i = 0; i < 3; i++) {
+            signInRateLimiter.checkSignIn("alice", ADDRESS);
+        }
+        signInRateLimiter.checkSignIn("bob", ADDRESS);
+    }
+
+    @Test(expected = TooManyRequestsException.class)
+    public void addressBucketSpansAccounts() {
+        signInRateLimiter = createRateLimiter(100, 60000L, 2, 60000L);
+
+        signInRateLimiter.checkSignIn("alice", ADDRESS);
+        signInRateLimiter.checkSignIn("bob", ADDRESS);
+        signInRateLimiter.checkSignIn("carol", ADDRESS);
+    }
+
+    @Test
+    public void otherAddressesAreNotLimited() {
+        signInRateLimiter = createRateLimiter(100, 60000L, 2, 60000L);
+
+        signInRateLimiter.checkSignIn("alice", ADDRESS);
+        signInRateLimiter.checkSignIn("bob", ADDRESS);
+        signInRateLimiter.checkSignIn("carol", "198.51.100.1");
+    }
+
+    @Test
+    public void bucketRefillsAfterInterval() throws InterruptedException {
+        signInRateLimiter = createRateLimiter(1, 50L, 100, 50L);
+
+        signInRateLimiter.checkSignIn("alice", ADDRESS);
+        try {
+            signInRateLimiter.checkSignIn("alice", ADDRESS);
+            fail("Expected the second attempt to be rejected");
+        } catch (TooManyRequestsException ex) {
+            // expected
+        }
+
+        Thread.sleep(200);
+        signInRateLimiter.checkSignIn("alice", ADDRESS);
+    }
+
+    private SignInRateLimiter createRateLimiter(int accountBurst, long accountIntervalInMs,
+                                                int addressBurst, long addressIntervalInMs) {
+        SignInRateLimiter rateLimiter = new SignInRateLimiter();
+        ReflectionTestUtils.setField(rateLimiter, "accountBurst", accountBurst);
+        ReflectionTestUtils.setField(rateLimiter, "accountIntervalInMs", accountIntervalInMs);
+        ReflectionTestUtils.setField(rateLimiter, "addressBurst", addressBurst);
+        ReflectionTestUtils.setField(rateLimiter, "addressIntervalInMs", addressIntervalInMs);
+        ReflectionTestUtils.setField(rateLimiter, "maximumSize", 1000L);
+        rateLimiter.init();
+        return rateLimiter;
+    }
+}
@@ -0,0 +1,377 @@
+package com.thienan.lovebox.service.impl;
+
+import com.thienan.lovebox.entity.QuestionType;
+import com.thienan.lovebox.utils.DeadlockRetryTemplate;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Runs the buffer against an in-memory love table. The scheduler is off, so every flush
+ * happens where the test calls it.
+ */
+public class QuestionLoveBufferImplTest {
+
+    private InMemoryLoveTable loveTable;
+
+    private QuestionLoveBufferImpl questionLoveBuffer;
+
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() {
+        loveTable = new InMemoryLoveTable();
+        executor = Executors.newSingleThreadExecutor();
+
+        questionLoveBuffer = new QuestionLoveBufferImpl();
+        ReflectionTestUtils.setField(questionLoveBuffer, "enabled", false);
+        ReflectionTestUtils.setField(questionLoveBuffer, "flushIntervalInMs", 500L);
+        ReflectionTestUtils.setField(questionLoveBuffer, "maximumSize", 10);
+        ReflectionTestUtils.setField(questionLoveBuffer, "jdbcTemplate", loveTable);
+        ReflectionTestUtils.setField(questionLoveBuffer, "deadlockRetryTemplate",
+                new DeadlockRetryTemplate(new NoOpTransactionManager(), 1));
+        ReflectionTestUtils.setField(questionLoveBuffer, "meterRegistry", new SimpleMeterRegistry());
+        questionLoveBuffer.init();
+    }
+
+    @After
+    public void tearDown() {
+        loveTable.releaseReads();
+        loveTable.releaseWrites();
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void togglesOfOnePairAreCoalescedIntoOneWrite() {
+        assertTrue(questionLoveBuffer.toggleLove(QuestionType.SINGLE, 1L, 7L));
+        assertFalse(questionLoveBuffer.toggleLove(QuestionType.SINGLE, 1L, 7L));
+        assertTrue(questionLoveBuffer.toggleLove(QuestionType.SINGLE, 1L, 7L));
+
+        questionLoveBuffer.flush();
+
+        assertTrue(loveTable.contains(1L, 7L));
+        assertEquals(1, loveTable.getWrittenRows());
+        assertNull(questionLoveBuffer.getPendingLove(QuestionType.SINGLE, 1L, 7L));
+    }
+
+    @Test
+    public void togglesThatCancelOutWriteNothing() {
+        loveTable.add(1L, 7L);
+
+        assertFalse(questionLoveBuffer.toggleLove(QuestionType.SINGLE, 1L, 7L));
+        assertTrue(questionLoveBuffer.toggleLove(QuestionType.SINGLE, 1L, 7L));
+        assertNull(questionLoveBuffer.getPendingLove(QuestionType.SINGLE, 1L, 7L));
+
+        questionLoveBuffer.flush();
+
+        assertTrue(loveTable.contains(1L, 7L));
+        assertEquals(0, loveTable.getWrittenRows());
+    }
+
+    @Test
+    public void failedWriteIsRequeuedAndWrittenByTheNextFlush() {
+        questionLoveBuffer.toggleLove(QuestionType.SINGLE, 1L, 7L);
+        loveTable.failNextWrite();
+
+        try {
+            questionLoveBuffer.flush();
+            fail("Expected the write to fail");
+        } catch (DataAccessResourceFailureException ex) {
+            // expected
+        }
+
+        assertFalse(loveTable.contains(1L, 7L));
+        assertEquals(Boolean.TRUE, questionLoveBuffer.getPendingLove(QuestionType.SINGLE, 1L, 7L));
+
+        questionLoveBuffer.flush();
+
+        assertTrue(loveTable.contains(1L, 7L));
+        assertNull(questionLoveBuffer.getPendingLove(QuestionType.SINGLE, 1L, 7L));
+    }
+
+    @Test
+    public void pendingLoveIsVisibleWhileItsBatchIsInFlight() throws Exception {
+        questionLoveBuffer.toggleLove(QuestionType.SINGLE, 1L, 7L);
+        loveTable.blockWrites();
+
+        Future<?> flush = executor.submit(() -> questionLoveBuffer.flush());
+        assertTrue(loveTable.awaitBlockedWrite());
+
+        assertEquals(Boolean.TRUE, questionLoveBuffer.getPendingLove(QuestionType.SINGLE, 1L, 7L));
+
+        loveTable.releaseWrites();
+        flush.get(5, TimeUnit.SECONDS);
+
+        assertTrue(loveTable.contains(1L, 7L));
+        assertNull(questionLoveBuffer.getPendingLove(QuestionType.SINGLE, 1L, 7L));
+    }
+
+    @Test
+    public void toggleDuringFailedWriteKeepsTheStateTheDatabaseStillHas() throws Exception {
+        questionLoveBuffer.toggleLove(QuestionType.SINGLE, 1L, 7L);
+        loveTable.blockWrites();
+        loveTable.failNextWrite();
+
+        Future<?> flush = executor.submit(() -> questionLoveBuffer.flush());
+        assertTrue(loveTable.awaitBlockedWrite());
+
+        // Sees the in-flight love as committed, so this toggle is an unlove
+        assertFalse(questionLoveBuffer.toggleLove(QuestionType.SINGLE, 1L, 7L));
+
+        loveTable.releaseWrites();
+        try {
+            flush.get(5, TimeUnit.SECONDS);
+            fail("Expected the write to fail");
+        } catch (ExecutionException ex) {
+            assertTrue(ex.getCause() instanceof DataAccessResourceFailureException);
+        }
+
+        // The love never reached the database and the user took it back, so nothing is left to write
+        assertNull(questionLoveBuffer.getPendingLove(QuestionType.SINGLE, 1L, 7L));
+        questionLoveBuffer.flush();
+        assertFalse(loveTable.contains(1L, 7L));
+        assertEquals(0, loveTable.getWrittenRows());
+    }
+
+    @Test
+    public void fullBufferFlushesBeforeTakingANewPair() {
+        ReflectionTestUtils.setField(questionLoveBuffer, "maximumSize", 2);
+
+        questionLoveBuffer.toggleLove(QuestionType.SINGLE, 1L, 7L);
+        questionLoveBuffer.toggleLove(QuestionType.SINGLE, 2L, 7L);
+        assertEquals(0, loveTable.getWrittenRows());
+
+        // Pairs already buffered still coalesce without a flush
+        questionLoveBuffer.toggleLove(QuestionType.SINGLE, 2L, 7L);
+        questionLoveBuffer.toggleLove(QuestionType.SINGLE, 2L, 7L);
+        assertEquals(0, loveTable.getWrittenRows());
+
+        questionLoveBuffer.toggleLove(QuestionType.SINGLE, 3L, 7L);
+
+        assertTrue(loveTable.contains(1L, 7L));
+        assertTrue(loveTable.contains(2L, 7L));
+        assertFalse(loveTable.contains(3L, 7L));
+        assertEquals(Boolean.TRUE, questionLoveBuffer.getPendingLove(QuestionType.SINGLE, 3L, 7L));
+    }
+
+    @Test
+    public void committedStateIsReadAgainWhenABatchFinishesDuringTheRead() throws Exception {
+        loveTable.blockNextRead();
+
+        // Reads "not loved", then waits while another toggle of the pair is written
+        Future<Boolean> toggle = executor.submit(() -> questionLoveBuffer.toggleLove(QuestionType.SINGLE, 1L, 7L));
+        assertTrue(loveTable.awaitBlockedRead());
+
+        assertTrue(questionLoveBuffer.toggleLove(QuestionType.SINGLE, 1L, 7L));
+        questionLoveBuffer.flush();
+        assertTrue(loveTable.contains(1L, 7L));
+
+        loveTable.releaseReads();
+
+        // The stale read is dropped, so the late toggle sees the love and takes it back
+        assertFalse(toggle.get(5, TimeUnit.SECONDS));
+        questionLoveBuffer.flush();
+        assertFalse(loveTable.contains(1L, 7L));
+    }
+
+    @Test
+    public void togglesBufferedBeforeShutdownAreWrittenByTheFinalFlush() throws Exception {
+        questionLoveBuffer.toggleLove(QuestionType.SINGLE, 1L, 7L);
+
+        questionLoveBuffer.shutdown();
+
+        assertTrue(loveTable.contains(1L, 7L));
+        assertNull(questionLoveBuffer.getPendingLove(QuestionType.SINGLE, 1L, 7L));
+    }
+
+    @Test
+    public void togglesAfterShutdownAreWrittenDirectly() throws Exception {
+        questionLoveBuffer.shutdown();
+
+        assertTrue(questionLoveBuffer.toggleLove(QuestionType.SINGLE, 1L, 7L));
+        assertTrue(loveTable.contains(1L, 7L));
+        assertNull(questionLoveBuffer.getPendingLove(QuestionType.SINGLE, 1L, 7L));
+
+        assertFalse(questionLoveBuffer.toggleLove(QuestionType.SINGLE, 1L, 7L));
+        assertFalse(loveTable.contains(1L, 7L));
+    }
+
+    @Test
+    public void shutdownWithSchedulerLeavesLaterTogglesUnaffected() throws Exception {
+        ReflectionTestUtils.setField(questionLoveBuffer, "enabled", true);
+        ReflectionTestUtils.setField(questionLoveBuffer, "maximumSize", 2);
+        questionLoveBuffer.init();
+
+        questionLoveBuffer.shutdown();
+
+        // Past half full, yet nothing is handed to the scheduler, which no longer takes tasks
+        assertTrue(questionLoveBuffer.toggleLove(QuestionType.SINGLE, 1L, 7L));
+        assertTrue(questionLoveBuffer.toggleLove(QuestionType.SINGLE, 2L, 7L));
+        assertTrue(loveTable.contains(1L, 7L));
+        assertTrue(loveTable.contains(2L, 7L));
+    }
+
+    /**
+     * Stands in for single_question_loves, answering the buffer's count query, batch writes and
+     * the single-row writes made after shutdown.
+     */
+    private static class InMemoryLoveTable extends JdbcTemplate {
+
+        private final Set<List<Long>> rows = ConcurrentHashMap.newKeySet();
+
+        private final AtomicInteger writtenRows = new AtomicInteger();
+
+        private volatile boolean failNextWrite;
+
+        private volatile CountDownLatch writeStarted;
+
+        private volatile CountDownLatch writeReleased;
+
+        private volatile CountDownLatch readStarted;
+
+        private volatile CountDownLatch readReleased;
+
+        void add(Long questionId, Long userId) {
+            rows.add(Arrays.asList(questionId, userId));
+        }
+
+        boolean contains(Long questionId, Long userId) {
+            return rows.contains(Arrays.asList(questionId, userId));
+        }
+
+        int getWrittenRows() {
+            return writtenRows.get();
+        }
+
+        void failNextWrite() {
+            failNextWrite = true;
+        }
+
+        void blockWrites() {
+            writeStarted = new CountDownLatch(1);
+            writeReleased = new CountDownLatch(1);
+        }
+
+        boolean awaitBlockedWrite() throws InterruptedException {
+            return writeStarted.await(5, TimeUnit.SECONDS);
+        }
+
+        void releaseWrites() {
+            if (writeReleased != null) {
+                writeReleased.countDown();
+            }
+        }
+
+        // Only the next read is held after taking its result, later reads go through
+        void blockNextRead() {
+            readStarted = new CountDownLatch(1);
+            readReleased = new CountDownLatch(1);
+        }
+
+        boolean awaitBlockedRead() throws InterruptedException {
+            return readStarted.await(5, TimeUnit.SECONDS);
+        }
+
+        void releaseReads() {
+            if (readReleased != null) {
+                readReleased.countDown();
+            }
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> T queryForObject(String sql, Class<T> requiredType, Object... args) {
+            Integer count = contains((Long) args[0], (Long) args[1]) ? 1 : 0;
+
+            CountDownLatch started = readStarted;
+            if (started != null && started.getCount() > 0) {
+                started.countDown();
+                try {
+                    readReleased.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return (T) count;
+        }
+
+        @Override
+        public int update(String sql, Object... args) {
+            List<Long> row = Arrays.asList((Long) args[0], (Long) args[1]);
+            boolean changed = sql.startsWith("insert") ? rows.add(row) : rows.remove(row);
+            return changed ? 1 : 0;
+        }
+
+        @Override
+        public int[] batchUpdate(String sql, List<Object[]> batchArgs) {
+            if (writeStarted != null) {
+                writeStarted.countDown();
+                try {
+                    writeReleased.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+
+            if (failNextWrite) {
+                failNextWrite = false;
+                throw new DataAccessResourceFailureException("Connection lost");
+            }
+
+            for (Object[] args : batchArgs) {
+                if (sql.startsWith("insert")) {
+                    rows.add(Arrays.asList((Long) args[0], (Long) args[1]));
+                } else {
+                    rows.remove(Arrays.asList((Long) args[0], (Long) args[1]));
+                }
+                writtenRows.incrementAndGet();
+            }
+
+            int[] updateCounts = new int[batchArgs.size()];
+            Arrays.fill(updateCounts, 1);
+            return updateCounts;
+        }
+    }
+
+    private static class NoOpTransactionManager implements PlatformTransactionManager {
+
+        @Override
+        public TransactionStatus getTransaction(TransactionDefinition definition) {
+            return new SimpleTransactionStatus();
+        }
+
+        @Override
+        public void commit(TransactionStatus status) {
+        }
+
+        @Override
+        public void rollback(TransactionStatus status) {
+        }
+    }
+}
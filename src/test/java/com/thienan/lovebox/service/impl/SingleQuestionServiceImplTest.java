@@ -0,0 +1,178 @@
+package com.thienan.lovebox.service.impl;
+
+import com.thienan.lovebox.entity.QuestionType;
+import com.thienan.lovebox.entity.SingleQuestionEntity;
+import com.thienan.lovebox.repository.SingleQuestionRepository;
+import com.thienan.lovebox.service.TimelineService;
+import com.thienan.lovebox.shared.dto.SingleQuestionDto;
+import com.thienan.lovebox.shared.mapper.SingleQuestionMapper;
+import com.thienan.lovebox.utils.FeedCursor;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Covers the news feed merge of pushed timeline entries with answers pulled from
+ * authors whose answers are not pushed.
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class SingleQuestionServiceImplTest {
+
+    private static final Long USER_ID = 1L;
+
+    private static final Set<Long> PULLED_USER_IDS = new HashSet<>(Collections.singletonList(42L));
+
+    @Mock
+    TimelineService timelineService;
+
+    @Mock
+    SingleQuestionRepository singleQuestionRepository;
+
+    @Mock
+    SingleQuestionMapper singleQuestionMapper;
+
+    @InjectMocks
+    SingleQuestionServiceImpl singleQuestionService;
+
+    @Before
+    public void setUp() {
+        when(singleQuestionMapper.toSingleQuestionDtoList(anyList())).thenAnswer(invocation -> {
+            List<SingleQuestionEntity> singleQuestionEntities = invocation.getArgument(0);
+            List<SingleQuestionDto> singleQuestionDtos = new ArrayList<>();
+            for (SingleQuestionEntity singleQuestionEntity : singleQuestionEntities) {
+                SingleQuestionDto singleQuestionDto = new SingleQuestionDto();
+                singleQuestionDto.setId(singleQuestionEntity.getId());
+                singleQuestionDtos.add(singleQuestionDto);
+            }
+            return singleQuestionDtos;
+        });
+    }
+
+    @Test
+    public void mergesPushedAndPulledQuestionsNewestFirst() {
+        givenPushedQuestions(null, 10, question(3L, 30, true), question(1L, 10, true));
+        givenPulledQuestions(10, question(4L, 40, true), question(2L, 20, true));
+
+        List<SingleQuestionDto> singleQuestionDtos =
+                singleQuestionService.getQuestionsInNewsFeed(USER_ID, PULLED_USER_IDS, null, 10);
+
+        assertEquals(Arrays.asList(4L, 3L, 2L, 1L), getIds(singleQuestionDtos));
+    }
+
+    @Test
+    public void questionFoundInBothSourcesIsReturnedOnce() {
+        givenPushedQuestions(null, 10, question(5L, 50, true));
+        givenPulledQuestions(10, question(5L, 50, true), question(2L, 20, true));
+
+        List<SingleQuestionDto> singleQuestionDtos =
+                singleQuestionService.getQuestionsInNewsFeed(USER_ID, PULLED_USER_IDS, null, 10);
+
+        assertEquals(Arrays.asList(5L, 2L), getIds(singleQuestionDtos));
+    }
+
+    @Test
+    public void sameAnsweredAtIsOrderedByIdDescending() {
+        givenPushedQuestions(null, 10, question(7L, 30, true));
+        givenPulledQuestions(10, question(9L, 30, true), question(8L, 30, true));
+
+        List<SingleQuestionDto> singleQuestionDtos =
+                singleQuestionService.getQuestionsInNewsFeed(USER_ID, PULLED_USER_IDS, null, 10);
+
+        assertEquals(Arrays.asList(9L, 8L, 7L), getIds(singleQuestionDtos));
+    }
+
+    @Test
+    public void pushedQuestionsNoLongerAnsweredAreDropped() {
+        givenPushedQuestions(null, 10, question(3L, 30, false), question(1L, 10, true));
+
+        List<SingleQuestionDto> singleQuestionDtos =
+                singleQuestionService.getQuestionsInNewsFeed(USER_ID, Collections.emptySet(), null, 10);
+
+        assertEquals(Collections.singletonList(1L), getIds(singleQuestionDtos));
+    }
+
+    @Test
+    public void mergedQuestionsAreCutAtLimit() {
+        givenPushedQuestions(null, 2, question(3L, 30, true), question(1L, 10, true));
+        givenPulledQuestions(2, question(4L, 40, true), question(2L, 20, true));
+
+        List<SingleQuestionDto> singleQuestionDtos =
+                singleQuestionService.getQuestionsInNewsFeed(USER_ID, PULLED_USER_IDS, null, 2);
+
+        assertEquals(Arrays.asList(4L, 3L), getIds(singleQuestionDtos));
+    }
+
+    @Test
+    public void nothingIsPulledWithoutPulledAuthors() {
+        givenPushedQuestions(null, 10, question(1L, 10, true));
+
+        singleQuestionService.getQuestionsInNewsFeed(USER_ID, Collections.emptySet(), null, 10);
+
+        verify(singleQuestionRepository, never()).findAnsweredQuestionsByUserIdsIn(any(), any());
+        verify(singleQuestionRepository, never()).findAnsweredQuestionsByUserIdsInBefore(any(), any(), any(), any());
+    }
+
+    @Test
+    public void pulledQuestionsStartAfterTheCursor() {
+        FeedCursor feedCursor = new FeedCursor(Instant.ofEpochSecond(25), 6L);
+        givenPushedQuestions(feedCursor, 10, question(1L, 10, true));
+        when(singleQuestionRepository.findAnsweredQuestionsByUserIdsInBefore(
+                PULLED_USER_IDS, feedCursor.getAnsweredAt(), feedCursor.getId(), PageRequest.of(0, 10)))
+                .thenReturn(Collections.singletonList(question(2L, 20, true)));
+
+        List<SingleQuestionDto> singleQuestionDtos =
+                singleQuestionService.getQuestionsInNewsFeed(USER_ID, PULLED_USER_IDS, feedCursor, 10);
+
+        assertEquals(Arrays.asList(2L, 1L), getIds(singleQuestionDtos));
+    }
+
+    private void givenPushedQuestions(FeedCursor feedCursor, int limit, SingleQuestionEntity... singleQuestionEntities) {
+        List<Long> questionIds = new ArrayList<>();
+        for (SingleQuestionEntity singleQuestionEntity : singleQuestionEntities) {
+            questionIds.add(singleQuestionEntity.getId());
+        }
+
+        when(timelineService.getQuestionIds(USER_ID, QuestionType.SINGLE, feedCursor, limit)).thenReturn(questionIds);
+        when(singleQuestionRepository.findAllById(questionIds)).thenReturn(Arrays.asList(singleQuestionEntities));
+    }
+
+    private void givenPulledQuestions(int limit, SingleQuestionEntity... singleQuestionEntities) {
+        when(singleQuestionRepository.findAnsweredQuestionsByUserIdsIn(PULLED_USER_IDS, PageRequest.of(0, limit)))
+                .thenReturn(Arrays.asList(singleQuestionEntities));
+    }
+
+    private SingleQuestionEntity question(Long id, long answeredAtInSeconds, boolean answered) {
+        SingleQuestionEntity singleQuestionEntity = new SingleQuestionEntity();
+        singleQuestionEntity.setId(id);
+        singleQuestionEntity.setAnswered(answered);
+        singleQuestionEntity.setAnsweredAt(Instant.ofEpochSecond(answeredAtInSeconds));
+        return singleQuestionEntity;
+    }
+
+    private List<Long> getIds(List<SingleQuestionDto> singleQuestionDtos) {
+        List<Long> ids = new ArrayList<>();
+        for (SingleQuestionDto singleQuestionDto : singleQuestionDtos) {
+            ids.add(singleQuestionDto.getId());
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,104 @@
+package com.thienan.lovebox.shared.mapper;
+
+import com.thienan.lovebox.entity.PhotoEntity;
+import com.thienan.lovebox.entity.SingleQuestionEntity;
+import com.thienan.lovebox.entity.UserEntity;
+import com.thienan.lovebox.payload.response.SingleQuestionResponse;
+import com.thienan.lovebox.shared.dto.SingleQuestionDto;
+import com.thienan.lovebox.shared.dto.UserDto;
+import org.modelmapper.ModelMapper;
+import org.modelmapper.TypeToken;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Maps one news feed page of single questions to responses, with the previous ModelMapper
+ * path and with the handwritten mappers. Run with the main method from the test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MapperBenchmark {
+
+    @Param({"20"})
+    int pageSize;
+
+    private List<SingleQuestionEntity> page;
+
+    private ModelMapper modelMapper;
+
+    private SingleQuestionMapper singleQuestionMapper;
+
+    @Setup
+    public void setUp() {
+        modelMapper = new ModelMapper();
+        modelMapper.getConfiguration().setAmbiguityIgnored(true);
+        modelMapper.typeMap(UserEntity.class, UserDto.class)
+                .addMappings(mapper -> {
+                    mapper.skip(UserDto::setFollowing);
+                    mapper.skip(UserDto::setFollowers);
+                });
+
+        PhotoMapper photoMapper = new PhotoMapper();
+        UserMapper userMapper = new UserMapper();
+        userMapper.photoMapper = photoMapper;
+        singleQuestionMapper = new SingleQuestionMapper();
+        singleQuestionMapper.userMapper = userMapper;
+
+        page = new ArrayList<>(pageSize);
+        for (int i = 0; i < pageSize; i++) {
+            SingleQuestionEntity singleQuestionEntity = new SingleQuestionEntity(user(2 * i), user(2 * i + 1),
+                    "Question " + i, "Answer " + i, true, Instant.now());
+            singleQuestionEntity.setId((long) i);
+            singleQuestionEntity.setCreatedAt(Instant.now());
+
+            page.add(singleQuestionEntity);
+        }
+    }
+
+    @Benchmark
+    public List<SingleQuestionResponse> modelMapper() {
+        List<SingleQuestionDto> singleQuestionDtos = new ArrayList<>();
+
+        for (SingleQuestionEntity singleQuestionEntity : page) {
+            singleQuestionDtos.add(modelMapper.map(singleQuestionEntity, SingleQuestionDto.class));
+        }
+
+        return modelMapper.map(singleQuestionDtos, new TypeToken<List<SingleQuestionResponse>>() {
+        }.getType());
+    }
+
+    @Benchmark
+    public List<SingleQuestionResponse> handwrittenMapper() {
+        List<SingleQuestionDto> singleQuestionDtos = singleQuestionMapper.toSingleQuestionDtoList(page);
+        return singleQuestionMapper.toSingleQuestionResponseList(singleQuestionDtos);
+    }
+
+    private static UserEntity user(long id) {
+        UserEntity userEntity = new UserEntity("user" + id, "user" + id + "@lovebox.com",
+                "First", "Last", "password", "Hello", null);
+        userEntity.setId(id);
+
+        PhotoEntity photoEntity = new PhotoEntity("http://res.cloudinary.com/lovebox/" + id + ".jpg");
+        photoEntity.setId(id);
+        userEntity.setPhoto(photoEntity);
+
+        return userEntity;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(MapperBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}